@@ -0,0 +1,98 @@
+package info.kgeorgiy.ja.korobejnikov.walk;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Hashes one huge file followed by many small ones with {@link AsyncFileProcessor} and reports when files complete.
+ * Small files that fit into pending slots should not wait for the huge file to be read.
+ * Exits with code 1 if digests differ from {@link FileHasher} or the first small file completes after the huge one.
+ * Usage: {@code AsyncFairnessBenchmark [hugeMegabytes] [smallFiles] [reads]}.
+ */
+public class AsyncFairnessBenchmark {
+    private static final int SMALL_SIZE = 16 << 10;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        final int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        final int count = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        final int reads = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        final Path root = Files.createTempDirectory("async-fairness-benchmark");
+        try {
+            final Random random = new Random(6148914691236517205L);
+            final Path[] files = new Path[count + 1];
+            final byte[] block = new byte[1 << 20];
+            files[0] = root.resolve("huge");
+            try (OutputStream out = Files.newOutputStream(files[0])) {
+                for (int i = 0; i < megabytes; i++) {
+                    random.nextBytes(block);
+                    out.write(block);
+                }
+            }
+            for (int i = 1; i <= count; i++) {
+                random.nextBytes(block);
+                files[i] = Files.write(root.resolve("small" + i), Arrays.copyOf(block, SMALL_SIZE));
+            }
+            final FileHasher hasher = new FileHasher(HashAlgorithm.XXHASH64, null, null);
+            final byte[][] expected = Stream.of(files).map(file -> hasher.hash(file).clone()).toArray(byte[][]::new);
+
+            System.out.printf("%d MB file and %d files of %d KB, %d reads%n", megabytes, count, SMALL_SIZE >> 10, reads);
+            System.out.printf("%12s %16s %16s %16s%n", "huge, ms", "first small, ms", "median small, ms", "last small, ms");
+            for (int round = 0; round < ROUNDS; round++) {
+                final long[] times = run(files, expected, reads);
+                final long[] small = Arrays.copyOfRange(times, 1, times.length);
+                Arrays.sort(small);
+                System.out.printf("%12.1f %16.1f %16.1f %16.1f%n", times[0] / 1e6,
+                        small[0] / 1e6, small[small.length / 2] / 1e6, small[small.length - 1] / 1e6);
+                if (small[0] > times[0]) {
+                    System.err.println("Small files wait for the huge file");
+                    System.exit(1);
+                }
+            }
+        } finally {
+            try (Stream<Path> paths = Files.walk(root)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    /**
+     * Returns completion times of files in nanoseconds since the start.
+     */
+    private static long[] run(Path[] files, byte[][] expected, int reads) throws IOException {
+        final Map<String, Long> completed = new ConcurrentHashMap<>();
+        final Map<String, byte[]> results = new ConcurrentHashMap<>();
+        final long start = System.nanoTime();
+        final HashWriter writer = new HashWriter(Channels.newChannel(OutputStream.nullOutputStream()));
+        try (AsyncFileProcessor processor = new AsyncFileProcessor(writer, HashAlgorithm.XXHASH64, null, 1, reads) {
+            @Override
+            protected void complete(int slot, String name) {
+                completed.put(name, System.nanoTime() - start);
+                results.put(name, digests[slot].clone());
+                super.complete(slot, name);
+            }
+        }) {
+            for (int i = 0; i < files.length; i++) {
+                processor.process(files[i], Integer.toString(i));
+            }
+        }
+        final long[] times = new long[files.length];
+        for (int i = 0; i < files.length; i++) {
+            if (!Arrays.equals(results.get(Integer.toString(i)), expected[i])) {
+                System.err.println("Wrong digest of " + files[i]);
+                System.exit(1);
+            }
+            times[i] = completed.get(Integer.toString(i));
+        }
+        return times;
+    }
+}
@@ -0,0 +1,39 @@
+package info.kgeorgiy.ja.korobejnikov.walk;
+
+import java.io.IOException;
+
+/**
+ * Minimal warmup-then-measure harness shared by walk benchmarks.
+ */
+class BenchmarkRunner {
+    private final int warmup;
+    private final int iterations;
+
+    BenchmarkRunner(int warmup, int iterations) {
+        this.warmup = warmup;
+        this.iterations = iterations;
+    }
+
+    /**
+     * Runs action and returns {@code {average, best}} time of one iteration in nanoseconds.
+     */
+    long[] measure(Action action) throws IOException {
+        for (int i = 0; i < warmup; i++) {
+            action.run();
+        }
+        long best = Long.MAX_VALUE;
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+            final long start = System.nanoTime();
+            action.run();
+            final long time = System.nanoTime() - start;
+            best = Math.min(best, time);
+            total += time;
+        }
+        return new long[]{total / iterations, best};
+    }
+
+    interface Action {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,56 @@
+package info.kgeorgiy.ja.korobejnikov.walk;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Compares {@link PjwHash#concatHashPath} over {@link BufferedWriter} with {@link HashWriter}.
+ * Usage: {@code OutputBenchmark [lines]}.
+ */
+public class OutputBenchmark {
+    private static final int WARMUP = 5;
+    private static final int ITERATIONS = 10;
+
+    public static void main(String[] args) throws IOException {
+        final int lines = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        final Random random = new Random(4875043285743285204L);
+        final long[] hashes = new long[lines];
+        final String[] paths = new String[lines];
+        for (int i = 0; i < lines; i++) {
+            hashes[i] = random.nextLong();
+            paths[i] = "/data/tree/dir" + random.nextInt(1000) + "/subdir" + random.nextInt(100) + "/file" + i + ".bin";
+        }
+        final Path output = Files.createTempFile("output-benchmark", ".txt");
+        try {
+            run("String.format + BufferedWriter", lines, () -> {
+                try (BufferedWriter writer = Files.newBufferedWriter(output)) {
+                    for (int i = 0; i < lines; i++) {
+                        writer.write(PjwHash.concatHashPath(hashes[i], paths[i]));
+                    }
+                }
+            });
+            run("HashWriter", lines, () -> {
+                final byte[] digest = new byte[Long.BYTES];
+                final ByteBuffer digestBuffer = ByteBuffer.wrap(digest);
+                try (HashWriter writer = HashWriter.open(output)) {
+                    for (int i = 0; i < lines; i++) {
+                        digestBuffer.putLong(0, hashes[i]);
+                        writer.write(digest, paths[i]);
+                    }
+                }
+            });
+        } finally {
+            Files.deleteIfExists(output);
+        }
+    }
+
+    private static void run(String name, int lines, BenchmarkRunner.Action action) throws IOException {
+        final long[] time = new BenchmarkRunner(WARMUP, ITERATIONS).measure(action);
+        System.out.printf("%-32s avg %8.1f ns/line, best %8.1f ns/line%n",
+                name, (double) time[0] / lines, (double) time[1] / lines);
+    }
+}
@@ -0,0 +1,162 @@
+package info.kgeorgiy.ja.korobejnikov.walk;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Throughput of {@link Walk} and {@link RecursiveWalk} over synthetic trees for every hashing mode.
+ * Trees are generated in a temporary directory and stay in page cache, so numbers show CPU cost of the pipeline.
+ * Walks run through the entry points that throw {@link WalkException}, so a failed run stops the benchmark.
+ * Usage: {@code WalkBenchmark [scale]}, scale multiplies number and size of generated files.
+ */
+public class WalkBenchmark {
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+    private static final int ASYNC_READS = 16;
+
+    private final Random random = new Random(8045698376545L);
+    private final int scale;
+    private final Path root;
+
+    private WalkBenchmark(int scale, Path root) {
+        this.scale = scale;
+        this.root = root;
+    }
+
+    public static void main(String[] args) throws IOException {
+        final int scale = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        final Path root = Files.createTempDirectory("walk-benchmark");
+        try {
+            new WalkBenchmark(scale, root).run();
+        } finally {
+            delete(root);
+        }
+    }
+
+    private void run() throws IOException {
+        final List<Tree> trees = List.of(
+                tinyFiles(root.resolve("tiny"), 20_000 * scale),
+                hugeFiles(root.resolve("huge"), 4, (64L << 20) * scale),
+                deepNesting(root.resolve("deep"), 64 * scale));
+        for (Tree tree : trees) {
+            System.out.printf("%s: %d files, %.1f MB%n", tree.name, tree.files.size(), tree.bytes / 1e6);
+            for (HashAlgorithm algorithm : HashAlgorithm.values()) {
+                for (int threads : IntStream.of(1, THREADS).distinct().toArray()) {
+                    final String[] options = {"--algo", algorithm.getName(), "--threads", Integer.toString(threads)};
+                    measure(tree, "Walk " + String.join(" ", options), Walk::run, tree.list, options);
+                    measure(tree, "RecursiveWalk " + String.join(" ", options), RecursiveWalk::run, tree.rootList, options);
+                }
+                final String[] async = {"--algo", algorithm.getName(), "--threads", Integer.toString(THREADS),
+                        "--async", Integer.toString(ASYNC_READS)};
+                measure(tree, "RecursiveWalk " + String.join(" ", async), RecursiveWalk::run, tree.rootList, async);
+            }
+            final Path cache = root.resolve(tree.dir.getFileName() + ".cache");
+            RecursiveWalk.run(new String[]{"--cache", cache.toString(),
+                    tree.rootList.toString(), root.resolve("out").toString()});
+            measure(tree, "RecursiveWalk --cache (warm)", RecursiveWalk::run, tree.rootList, "--cache", cache.toString());
+        }
+    }
+
+    private void measure(Tree tree, String name, Consumer<String[]> walk, Path input, String... options) throws IOException {
+        final Path out = root.resolve("out");
+        final String[] args = Stream.concat(Stream.of(options), Stream.of(input.toString(), out.toString()))
+                .toArray(String[]::new);
+        Files.deleteIfExists(out);
+        final long[] time = tree.runner.measure(() -> walk.accept(args));
+        final long lines;
+        try (Stream<String> output = Files.lines(out)) {
+            lines = output.count();
+        }
+        if (lines != tree.files.size()) {
+            throw new IllegalStateException(name + " wrote " + lines + " hashes for " + tree.files.size() + " files");
+        }
+        System.out.printf("    %-52s %10.1f MB/s %12.0f files/s%n", name,
+                tree.bytes / 1e6 / (time[1] / 1e9), tree.files.size() / (time[1] / 1e9));
+    }
+
+    private Tree tinyFiles(Path dir, int count) throws IOException {
+        final Tree tree = new Tree("tiny files", dir, new BenchmarkRunner(3, 5));
+        for (int i = 0; i < count; i++) {
+            tree.add(dir.resolve("d" + i % 100).resolve("f" + i), random.nextInt(512));
+        }
+        return tree.finish();
+    }
+
+    private Tree hugeFiles(Path dir, int count, long size) throws IOException {
+        final Tree tree = new Tree("huge files", dir, new BenchmarkRunner(1, 3));
+        for (int i = 0; i < count; i++) {
+            tree.add(dir.resolve("f" + i), size);
+        }
+        return tree.finish();
+    }
+
+    private Tree deepNesting(Path dir, int depth) throws IOException {
+        final Tree tree = new Tree("deep nesting", dir, new BenchmarkRunner(3, 5));
+        Path current = dir;
+        for (int i = 0; i < depth; i++) {
+            current = current.resolve("level" + i);
+            for (int j = 0; j < 4; j++) {
+                tree.add(current.resolve("f" + j), random.nextInt(64 << 10));
+            }
+        }
+        return tree.finish();
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private class Tree {
+        private final String name;
+        private final Path dir;
+        private final BenchmarkRunner runner;
+        private final List<Path> files = new ArrayList<>();
+        private long bytes = 0;
+        private Path list;
+        private Path rootList;
+
+        private Tree(String name, Path dir, BenchmarkRunner runner) {
+            this.name = name;
+            this.dir = dir;
+            this.runner = runner;
+        }
+
+        private void add(Path file, long size) throws IOException {
+            Files.createDirectories(file.getParent());
+            final byte[] block = new byte[(int) Math.min(size, 1 << 20)];
+            random.nextBytes(block);
+            try (OutputStream out = Files.newOutputStream(file)) {
+                for (long written = 0; written < size; written += block.length) {
+                    out.write(block, 0, (int) Math.min(block.length, size - written));
+                }
+            }
+            files.add(file);
+            bytes += size;
+        }
+
+        private Tree finish() throws IOException {
+            list = Files.write(root.resolve(dir.getFileName() + ".list"),
+                    files.stream().map(Path::toString).collect(Collectors.toList()));
+            rootList = Files.write(root.resolve(dir.getFileName() + ".root"), List.of(dir.toString()));
+            return this;
+        }
+    }
+}
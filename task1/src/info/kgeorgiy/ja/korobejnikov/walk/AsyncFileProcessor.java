@@ -0,0 +1,328 @@
+package info.kgeorgiy.ja.korobejnikov.walk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashes files with {@link AsynchronousFileChannel}, keeping up to {@code reads} chunk reads outstanding
+ * over all files being hashed. Channels run reads on a pool of {@code reads} threads, as on some platforms
+ * every read blocks a thread of the pool. Every file issues chunk reads in offset order, completed chunks
+ * are hashed in the same order by a task on a separate pool of {@code threads} hashing threads,
+ * so hashing never holds up reads.
+ * <p>
+ * A read permit is held from issuing a chunk until it is hashed and is passed to the next chunk of the same file,
+ * so a started file always makes progress. A file keeps at most {@code reads / files} reads outstanding,
+ * where {@code files} is the number of files being hashed, so a large file doesn't starve the others.
+ */
+class AsyncFileProcessor extends OrderedFileProcessor {
+    private static final int CHUNK_SIZE = 256 << 10;
+    private static final int MIN_PENDING_FILES = 16;
+
+    private final HashAlgorithm algorithm;
+    private final HashCache cache;
+    private final int maxReads;
+    private final Semaphore reads;
+    private final AtomicInteger files = new AtomicInteger();
+    private final ExecutorService readers;
+    private final ExecutorService hashers;
+    private final Queue<Hasher> idleHashers = new ConcurrentLinkedQueue<>();
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+
+    AsyncFileProcessor(final HashWriter writer, final HashAlgorithm algorithm, final HashCache cache,
+                       final int threads, final int reads) {
+        super(writer, algorithm, Math.max(MIN_PENDING_FILES, 2 * reads));
+        this.algorithm = algorithm;
+        this.cache = cache;
+        this.maxReads = reads;
+        this.reads = new Semaphore(reads);
+        this.readers = Executors.newFixedThreadPool(reads);
+        this.hashers = Executors.newFixedThreadPool(threads);
+    }
+
+    @Override
+    protected void start(final int slot, final Path file, final String name) {
+        String key = null;
+        BasicFileAttributes attrs = null;
+        if (cache != null) {
+            try {
+                attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            } catch (final IOException e) {
+                fail(slot, name);
+                return;
+            }
+            if (attrs.isRegularFile()) {
+                key = file.toAbsolutePath().toString();
+                if (cache.lookup(key, attrs, digests[slot])) {
+                    statistics.cacheHits.increment();
+                    complete(slot, name);
+                    return;
+                }
+            }
+        }
+        final AsynchronousFileChannel channel;
+        try {
+            channel = AsynchronousFileChannel.open(file, Set.of(StandardOpenOption.READ), readers);
+        } catch (final IOException | UnsupportedOperationException e) {
+            fail(slot, name);
+            return;
+        }
+        final long size;
+        try {
+            size = channel.size();
+        } catch (final IOException e) {
+            closeQuietly(channel);
+            fail(slot, name);
+            return;
+        }
+        new FileHash(slot, name, channel, size, key, attrs).start();
+    }
+
+    private void fail(final int slot, final String name) {
+        statistics.failures.increment();
+        Arrays.fill(digests[slot], (byte) 0);
+        complete(slot, name);
+    }
+
+    private static void closeQuietly(final AsynchronousFileChannel channel) {
+        try {
+            channel.close();
+        } catch (final IOException ignored) {
+            // nothing to do
+        }
+    }
+
+    @Override
+    protected void shutdown() {
+        readers.shutdownNow();
+        hashers.shutdownNow();
+    }
+
+    private static class Chunk {
+        private final long offset;
+        private final ByteBuffer buffer;
+
+        private Chunk(final long offset, final ByteBuffer buffer) {
+            this.offset = offset;
+            this.buffer = buffer;
+        }
+    }
+
+    private class FileHash implements CompletionHandler<Integer, Chunk> {
+        private final int slot;
+        private final String name;
+        private final AsynchronousFileChannel channel;
+        private final long size;
+        private final String key;
+        private final BasicFileAttributes attrs;
+        private final Hasher hasher;
+        private final Map<Long, Chunk> ready = new HashMap<>();
+        private long issued = 0;
+        private long hashed = 0;
+        private int outstanding = 0;
+        private boolean hashing = false;
+        private boolean failed = false;
+        private boolean finished = false;
+
+        private FileHash(final int slot, final String name, final AsynchronousFileChannel channel, final long size,
+                         final String key, final BasicFileAttributes attrs) {
+            this.slot = slot;
+            this.name = name;
+            this.channel = channel;
+            this.size = size;
+            this.key = key;
+            this.attrs = attrs;
+            final Hasher pooled = idleHashers.poll();
+            this.hasher = pooled != null ? pooled : algorithm.newHasher();
+            hasher.reset();
+        }
+
+        private void start() {
+            files.incrementAndGet();
+            if (size == 0) {
+                finish();
+                return;
+            }
+            try {
+                reads.acquire();
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                files.decrementAndGet();
+                closeQuietly(channel);
+                throw new WalkException("Waiting for asynchronous reads interrupted", exception);
+            }
+            issue(1 + tryAcquire());
+        }
+
+        /**
+         * Fair share of read permits of a file, counting files that wait for their first permit.
+         */
+        private int share() {
+            return Math.max(1, maxReads / Math.max(1, files.get()));
+        }
+
+        private int tryAcquire() {
+            final int limit = share() - 1;
+            int acquired = 0;
+            while (acquired < limit && reads.tryAcquire()) {
+                acquired++;
+            }
+            return acquired;
+        }
+
+        /**
+         * Issues up to {@code permits} next chunk reads, already acquired permits of the rest are released.
+         */
+        private void issue(final int permits) {
+            for (int i = 0; i < permits; i++) {
+                final Chunk chunk;
+                synchronized (this) {
+                    if (failed || issued >= size || outstanding >= share()) {
+                        reads.release(permits - i);
+                        return;
+                    }
+                    chunk = new Chunk(issued, borrowBuffer((int) Math.min(CHUNK_SIZE, size - issued)));
+                    issued += CHUNK_SIZE;
+                    outstanding++;
+                }
+                read(chunk);
+            }
+        }
+
+        private void read(final Chunk chunk) {
+            try {
+                channel.read(chunk.buffer, chunk.offset + chunk.buffer.position(), chunk, this);
+            } catch (final RuntimeException e) {
+                failed(e, chunk);
+            }
+        }
+
+        @Override
+        public void completed(final Integer length, final Chunk chunk) {
+            if (length >= 0 && chunk.buffer.hasRemaining()) {
+                read(chunk);
+                return;
+            }
+            statistics.bytesHashed.add(chunk.buffer.position());
+            final boolean schedule;
+            final boolean done;
+            synchronized (this) {
+                if (failed) {
+                    discard(chunk);
+                    schedule = false;
+                } else {
+                    ready.put(chunk.offset, chunk);
+                    schedule = !hashing && chunk.offset == hashed;
+                    hashing |= schedule;
+                }
+                done = tryFinish();
+            }
+            if (schedule) {
+                hashers.execute(this::hashReady);
+            } else if (done) {
+                finish();
+            }
+        }
+
+        @Override
+        public void failed(final Throwable exception, final Chunk chunk) {
+            final boolean done;
+            synchronized (this) {
+                failed = true;
+                discard(chunk);
+                ready.values().forEach(this::discard);
+                ready.clear();
+                done = tryFinish();
+            }
+            if (done) {
+                finish();
+            }
+        }
+
+        /**
+         * Hashes ready chunks in offset order until the next one is not read yet, runs on a hashing thread.
+         */
+        private void hashReady() {
+            while (true) {
+                final Chunk next;
+                synchronized (this) {
+                    next = failed ? null : ready.remove(hashed);
+                    if (next == null) {
+                        hashing = false;
+                        if (tryFinish()) {
+                            break;
+                        }
+                        return;
+                    }
+                }
+                next.buffer.flip();
+                hasher.update(next.buffer);
+                buffers.add(next.buffer);
+                synchronized (this) {
+                    hashed += CHUNK_SIZE;
+                    outstanding--;
+                }
+                issue(1 + tryAcquire());
+            }
+            finish();
+        }
+
+        /**
+         * Drops chunk of a failed file and releases its read permit.
+         */
+        private void discard(final Chunk chunk) {
+            outstanding--;
+            buffers.add(chunk.buffer);
+            reads.release();
+        }
+
+        /**
+         * Returns {@code true} exactly once, when nothing is being read or hashed and the file is done.
+         */
+        private boolean tryFinish() {
+            if (finished || hashing || outstanding > 0 || !failed && hashed < size) {
+                return false;
+            }
+            finished = true;
+            return true;
+        }
+
+        private void finish() {
+            files.decrementAndGet();
+            closeQuietly(channel);
+            if (failed) {
+                statistics.failures.increment();
+                Arrays.fill(digests[slot], (byte) 0);
+            } else {
+                hasher.digest(digests[slot]);
+                if (key != null) {
+                    cache.put(key, attrs, digests[slot]);
+                }
+            }
+            idleHashers.add(hasher);
+            complete(slot, name);
+        }
+
+        private ByteBuffer borrowBuffer(final int length) {
+            final ByteBuffer pooled = buffers.poll();
+            final ByteBuffer buffer = pooled != null ? pooled : ByteBuffer.allocateDirect(CHUNK_SIZE);
+            buffer.clear().limit(length);
+            return buffer;
+        }
+    }
+}
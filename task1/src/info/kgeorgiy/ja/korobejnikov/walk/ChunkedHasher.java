@@ -0,0 +1,61 @@
+package info.kgeorgiy.ja.korobejnikov.walk;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.stream.IntStream;
+
+/**
+ * Tree hash for large files: the file is split to {@code CHUNK_SIZE} chunks hashed in parallel,
+ * the result is the hash of concatenated chunk digests. It differs from the sequential hash of the same file,
+ * so it is written with {@link #TAG} before the digest.
+ */
+class ChunkedHasher {
+    static final String TAG = "tree:";
+    private static final long CHUNK_SIZE = 16 << 20;
+
+    private final HashAlgorithm algorithm;
+    private final long threshold;
+    private final WalkStatistics statistics = WalkStatistics.get();
+
+    ChunkedHasher(HashAlgorithm algorithm, long threshold) {
+        this.algorithm = algorithm;
+        this.threshold = threshold;
+    }
+
+    boolean applies(long size) {
+        return size >= threshold;
+    }
+
+    void hash(FileChannel channel, long size, Hasher root, byte[] digest) throws IOException {
+        final int chunks = (int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        final int length = digest.length;
+        final byte[] digests = new byte[chunks * length];
+        try {
+            IntStream.range(0, chunks).parallel().forEach(i -> {
+                final long position = i * CHUNK_SIZE;
+                final long chunkSize = Math.min(CHUNK_SIZE, size - position);
+                final Hasher hasher = algorithm.newHasher();
+                try {
+                    hasher.update(channel.map(FileChannel.MapMode.READ_ONLY, position, chunkSize));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                final byte[] chunkDigest = new byte[length];
+                hasher.digest(chunkDigest);
+                System.arraycopy(chunkDigest, 0, digests, i * length, length);
+                statistics.bytesHashed.add(chunkSize);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (UnsupportedOperationException e) {
+            throw new IOException("Can't map file", e);
+        } catch (InternalError e) {
+            throw new IOException("File was truncated while hashing", e);
+        }
+        root.reset();
+        root.update(ByteBuffer.wrap(digests));
+        root.digest(digest);
+    }
+}
@@ -0,0 +1,195 @@
+package info.kgeorgiy.ja.korobejnikov.walk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Finds groups of equal files among processed ones instead of writing a hash for every file.
+ * Files are grouped by size, files sharing a size are hashed by {@code PREFIX_SIZE} first bytes
+ * and only files sharing the prefix hash are hashed fully, so unique files are never read.
+ * Files with equal hashes are compared byte by byte unless the digest has at least {@code TRUSTED_DIGEST_BITS} bits,
+ * so collisions of short hashes are not reported.
+ * Every group is written as {@code <hash> <path>} lines in visit order followed by an empty line.
+ * A file visited several times is a candidate once, under its first name. Only files hashed fully are put
+ * to {@link HashCache}, so it keeps its other loaded entries for later runs.
+ */
+class DuplicateFinder implements FileProcessor {
+    private static final int PREFIX_SIZE = 4 << 10;
+    private static final int TRUSTED_DIGEST_BITS = 256;
+    private static final int COMPARE_BUFFER_SIZE = 64 << 10;
+
+    private final HashWriter writer;
+    private final ThreadLocal<FileHasher> hashers;
+    private final int threads;
+    private final boolean compare;
+    private final Map<Long, List<Candidate>> bySize = new LinkedHashMap<>();
+    private final Set<Path> seen = new HashSet<>();
+    private final WalkStatistics statistics = WalkStatistics.get();
+    private int visited = 0;
+
+    DuplicateFinder(final HashWriter writer, final HashAlgorithm algorithm, final HashCache cache,
+                    final ChunkedHasher chunked, final int threads) {
+        this.writer = writer;
+        this.hashers = ThreadLocal.withInitial(() -> new FileHasher(algorithm, cache, chunked));
+        this.threads = threads;
+        this.compare = algorithm.digestLength() * Byte.SIZE < TRUSTED_DIGEST_BITS;
+        if (cache != null) {
+            cache.retainLoaded();
+        }
+    }
+
+    @Override
+    public void process(final Path file, final String name) {
+        statistics.filesVisited.increment();
+        final BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (final IOException e) {
+            statistics.failures.increment();
+            return;
+        }
+        if (attrs.isRegularFile() && seen.add(file.toAbsolutePath().normalize())) {
+            bySize.computeIfAbsent(attrs.size(), size -> new ArrayList<>()).add(new Candidate(file, name, visited++));
+        }
+    }
+
+    @Override
+    public void processFailed(final String path) {
+        statistics.filesVisited.increment();
+        statistics.failures.increment();
+    }
+
+    @Override
+    public void close() throws IOException {
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        final List<List<Candidate>> groups;
+        try {
+            groups = pool.submit(() -> bySize.entrySet().parallelStream()
+                    .filter(entry -> entry.getValue().size() > 1)
+                    .flatMap(entry -> duplicates(entry.getKey(), entry.getValue()))
+                    .collect(Collectors.toList())
+            ).get();
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new WalkException("Searching duplicates interrupted", exception);
+        } catch (final ExecutionException exception) {
+            throw new WalkException("Searching duplicates failed: " + exception.getCause().getMessage(), exception.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        groups.sort(Comparator.comparingInt(group -> group.get(0).index));
+        for (final List<Candidate> group : groups) {
+            for (final Candidate candidate : group) {
+                writer.write(candidate.chunked ? ChunkedHasher.TAG : null, candidate.digest, candidate.name);
+            }
+            writer.writeEmptyLine();
+        }
+    }
+
+    private Stream<List<Candidate>> duplicates(final long size, final List<Candidate> sameSize) {
+        final Stream<List<Candidate>> samePrefix = group(sameSize, candidate -> hashers.get().hashPrefix(candidate.file, PREFIX_SIZE));
+        final Stream<List<Candidate>> sameHash = size <= PREFIX_SIZE ? samePrefix
+                : samePrefix.flatMap(candidates -> group(candidates, candidate -> hashers.get().hash(candidate.file)));
+        return compare ? sameHash.flatMap(this::sameContents) : sameHash;
+    }
+
+    /**
+     * Splits files with equal hashes to groups of byte-identical files, keeping visit order.
+     */
+    private Stream<List<Candidate>> sameContents(final List<Candidate> sameHash) {
+        final ByteBuffer first = ByteBuffer.allocate(COMPARE_BUFFER_SIZE);
+        final ByteBuffer second = ByteBuffer.allocate(COMPARE_BUFFER_SIZE);
+        final List<List<Candidate>> groups = new ArrayList<>();
+        for (final Candidate candidate : sameHash) {
+            groups.stream()
+                    .filter(group -> equalContents(group.get(0).file, candidate.file, first, second))
+                    .findFirst()
+                    .orElseGet(() -> {
+                        final List<Candidate> group = new ArrayList<>();
+                        groups.add(group);
+                        return group;
+                    })
+                    .add(candidate);
+        }
+        return groups.stream().filter(group -> group.size() > 1);
+    }
+
+    private boolean equalContents(final Path a, final Path b, final ByteBuffer first, final ByteBuffer second) {
+        try (FileChannel left = FileChannel.open(a, StandardOpenOption.READ);
+             FileChannel right = FileChannel.open(b, StandardOpenOption.READ)) {
+            while (true) {
+                final boolean leftEnd = !fill(left, first.clear());
+                final boolean rightEnd = !fill(right, second.clear());
+                if (!first.flip().equals(second.flip())) {
+                    return false;
+                }
+                if (leftEnd || rightEnd) {
+                    return leftEnd == rightEnd;
+                }
+            }
+        } catch (final IOException e) {
+            statistics.failures.increment();
+            return false;
+        }
+    }
+
+    /**
+     * Reads until {@code buffer} is full, returns {@code false} if end of file is reached.
+     */
+    private static boolean fill(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Stream<List<Candidate>> group(final List<Candidate> candidates, final Function<Candidate, byte[]> hash) {
+        return candidates.parallelStream()
+                .filter(candidate -> {
+                    final byte[] digest = hash.apply(candidate);
+                    final FileHasher hasher = hashers.get();
+                    if (hasher.isFailed()) {
+                        return false;
+                    }
+                    candidate.digest = digest.clone();
+                    candidate.chunked = hasher.isChunked();
+                    return true;
+                })
+                .collect(Collectors.groupingBy(candidate -> ByteBuffer.wrap(candidate.digest), LinkedHashMap::new, Collectors.toList()))
+                .values().stream()
+                .filter(group -> group.size() > 1);
+    }
+
+    private static class Candidate {
+        private final Path file;
+        private final String name;
+        private final int index;
+        private byte[] digest;
+        private boolean chunked;
+
+        private Candidate(final Path file, final String name, final int index) {
+            this.file = file;
+            this.name = name;
+            this.index = index;
+        }
+    }
+}
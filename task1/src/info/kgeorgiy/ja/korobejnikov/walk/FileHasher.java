@@ -0,0 +1,157 @@
+package info.kgeorgiy.ja.korobejnikov.walk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+
+/**
+ * Feeds file contents to a {@link Hasher}. Files of at least {@code MAP_THRESHOLD} bytes are memory-mapped
+ * in {@code MAP_WINDOW} windows, other files and files that can't be mapped or are truncated while mapped
+ * are read to a direct buffer.
+ * Digest array is reused between calls. If {@link HashCache} is given, unchanged files are not read.
+ * If {@link ChunkedHasher} is given, files above its threshold get a tree hash instead, see {@link #isChunked()}.
+ */
+class FileHasher {
+    private static final long MAP_THRESHOLD = 1 << 20;
+    private static final long MAP_WINDOW = 64 << 20;
+    private static final int BUFFER_SIZE = 64 << 10;
+
+    private final Hasher hasher;
+    private final HashCache cache;
+    private final ChunkedHasher chunked;
+    private final byte[] digest;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final WalkStatistics statistics = WalkStatistics.get();
+
+    private boolean lastChunked = false;
+    private boolean lastFailed = false;
+
+    FileHasher(HashAlgorithm algorithm, HashCache cache, ChunkedHasher chunked) {
+        this.hasher = algorithm.newHasher();
+        this.cache = cache;
+        this.chunked = chunked;
+        this.digest = new byte[hasher.digestLength()];
+    }
+
+    byte[] hash(Path file) {
+        lastChunked = false;
+        lastFailed = false;
+        if (cache == null) {
+            hashContents(file);
+            return digest;
+        }
+        final String key = file.toAbsolutePath().toString();
+        final BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            statistics.failures.increment();
+            return failed();
+        }
+        if (!attrs.isRegularFile() || chunked != null && chunked.applies(attrs.size())) {
+            hashContents(file);
+            return digest;
+        }
+        if (cache.lookup(key, attrs, digest)) {
+            statistics.cacheHits.increment();
+        } else if (hashContents(file)) {
+            cache.put(key, attrs, digest);
+        }
+        return digest;
+    }
+
+    private boolean hashContents(Path file) {
+        hasher.reset();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (chunked != null && chunked.applies(size)) {
+                chunked.hash(channel, size, hasher, digest);
+                lastChunked = true;
+                return true;
+            }
+            if (size < MAP_THRESHOLD || !hashMapped(channel, size)) {
+                hashRead(channel);
+            }
+            hasher.digest(digest);
+            return true;
+        } catch (IOException e) {
+            statistics.failures.increment();
+            failed();
+            return false;
+        }
+    }
+
+    /**
+     * Hashes at most {@code length} first bytes of the file, {@code length} should not exceed {@code BUFFER_SIZE}.
+     */
+    byte[] hashPrefix(Path file, int length) {
+        lastChunked = false;
+        lastFailed = false;
+        hasher.reset();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer.clear().limit(Math.min(length, BUFFER_SIZE));
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // read up to the limit
+            }
+            buffer.flip();
+            statistics.bytesHashed.add(buffer.remaining());
+            hasher.update(buffer);
+            hasher.digest(digest);
+        } catch (IOException e) {
+            statistics.failures.increment();
+            failed();
+        }
+        return digest;
+    }
+
+    /**
+     * Whether the last {@link #hash} result is a tree hash.
+     */
+    boolean isChunked() {
+        return lastChunked;
+    }
+
+    /**
+     * Whether the file of the last {@link #hash} or {@link #hashPrefix} can't be read.
+     */
+    boolean isFailed() {
+        return lastFailed;
+    }
+
+    byte[] failed() {
+        lastChunked = false;
+        lastFailed = true;
+        Arrays.fill(digest, (byte) 0);
+        return digest;
+    }
+
+    private boolean hashMapped(FileChannel channel, long size) throws IOException {
+        try {
+            for (long position = 0; position < size; position += MAP_WINDOW) {
+                hasher.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_WINDOW, size - position)));
+            }
+            statistics.bytesHashed.add(size);
+            return true;
+        } catch (IOException | UnsupportedOperationException | InternalError e) {
+            // InternalError reports SIGBUS on access to mapped pages past the end of a truncated file
+            hasher.reset();
+            channel.position(0);
+            return false;
+        }
+    }
+
+    private void hashRead(FileChannel channel) throws IOException {
+        buffer.clear();
+        while (channel.read(buffer) >= 0) {
+            buffer.flip();
+            statistics.bytesHashed.add(buffer.remaining());
+            hasher.update(buffer);
+            buffer.clear();
+        }
+    }
+}
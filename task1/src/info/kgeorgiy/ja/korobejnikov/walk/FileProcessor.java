@@ -0,0 +1,18 @@
+package info.kgeorgiy.ja.korobejnikov.walk;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Receives files found by walk in output order and writes their hashes.
+ */
+interface FileProcessor extends Closeable {
+    void process(Path file, String name) throws IOException;
+
+    default void process(Path file) throws IOException {
+        process(file, file.toString());
+    }
+
+    void processFailed(String path) throws IOException;
+}
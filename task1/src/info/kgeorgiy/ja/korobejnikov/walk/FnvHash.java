@@ -0,0 +1,40 @@
+package info.kgeorgiy.ja.korobejnikov.walk;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 32-bit FNV-1.
+ */
+public class FnvHash implements Hasher {
+    private static final int OFFSET_BASIS = 0x811c9dc5;
+    private static final int PRIME = 0x01000193;
+
+    private int hash = OFFSET_BASIS;
+
+    @Override
+    public void reset() {
+        hash = OFFSET_BASIS;
+    }
+
+    @Override
+    public void update(ByteBuffer buffer) {
+        int hash = this.hash;
+        for (int i = buffer.position(), limit = buffer.limit(); i < limit; i++) {
+            hash = (hash * PRIME) ^ (buffer.get(i) & 0xff);
+        }
+        this.hash = hash;
+        buffer.position(buffer.limit());
+    }
+
+    @Override
+    public int digestLength() {
+        return Integer.BYTES;
+    }
+
+    @Override
+    public void digest(byte[] target) {
+        for (int i = 0; i < Integer.BYTES; i++) {
+            target[i] = (byte) (hash >>> (24 - 8 * i));
+        }
+    }
+}
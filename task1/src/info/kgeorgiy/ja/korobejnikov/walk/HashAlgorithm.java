@@ -0,0 +1,42 @@
+package info.kgeorgiy.ja.korobejnikov.walk;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+public enum HashAlgorithm {
+    PJW("pjw", PjwHash::new),
+    FNV("fnv", FnvHash::new),
+    XXHASH64("xxhash64", XxHash64::new),
+    SHA256("sha-256", Sha256Hash::new);
+
+    private final String name;
+    private final Supplier<Hasher> factory;
+
+    HashAlgorithm(String name, Supplier<Hasher> factory) {
+        this.name = name;
+        this.factory = factory;
+    }
+
+    public Hasher newHasher() {
+        return factory.get();
+    }
+
+    public int digestLength() {
+        return newHasher().digestLength();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public static HashAlgorithm forName(String name) throws WalkException {
+        for (HashAlgorithm algorithm : values()) {
+            if (algorithm.name.equalsIgnoreCase(name)) {
+                return algorithm;
+            }
+        }
+        throw new WalkException("Unknown hash algorithm <" + name + ">, should be one of: "
+                + Arrays.stream(values()).map(HashAlgorithm::getName).collect(Collectors.joining(", ")));
+    }
+}
@@ -0,0 +1,210 @@
+package info.kgeorgiy.ja.korobejnikov.walk;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Persistent {@code path -> digest} cache validated by file size, modification time and file key.
+ * <p>
+ * File format: {@code MAGIC, algorithm, digest length, count} followed by {@code count} entries of
+ * {@code path, size, mtime, file key, digest}; strings are stored as int length and UTF-8 bytes.
+ * Loaded file is memory-mapped and only paths are materialized. Saved cache contains only files
+ * hashed during the current run, unless {@link #retainLoaded()} was called, and replaces the old one atomically.
+ */
+class HashCache {
+    private static final int MAGIC = 0x57484331;
+
+    private final Path file;
+    private final HashAlgorithm algorithm;
+    private final int digestLength;
+    private final ByteBuffer loaded;
+    private final Map<String, Integer> offsets;
+    private final Map<String, Entry> current = new ConcurrentHashMap<>();
+    private boolean retainLoaded = false;
+
+    private HashCache(Path file, HashAlgorithm algorithm, int digestLength, ByteBuffer loaded, Map<String, Integer> offsets) {
+        this.file = file;
+        this.algorithm = algorithm;
+        this.digestLength = digestLength;
+        this.loaded = loaded;
+        this.offsets = offsets;
+    }
+
+    static HashCache load(Path file, HashAlgorithm algorithm) throws WalkException {
+        final int digestLength = algorithm.digestLength();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            final Map<String, Integer> offsets = readIndex(buffer, algorithm, digestLength);
+            if (offsets != null) {
+                return new HashCache(file, algorithm, digestLength, buffer, offsets);
+            }
+            System.err.println("Hash cache " + file + " was built for another algorithm, ignoring it");
+        } catch (NoSuchFileException ignored) {
+            // first run
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException exception) {
+            System.err.println("Can't read hash cache " + file + ", ignoring it: " + exception.getMessage());
+        }
+        return new HashCache(file, algorithm, digestLength, ByteBuffer.allocate(0), Map.of());
+    }
+
+    private static Map<String, Integer> readIndex(ByteBuffer buffer, HashAlgorithm algorithm, int digestLength) {
+        if (buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("not a hash cache");
+        }
+        if (!readString(buffer).equals(algorithm.getName()) || buffer.getInt() != digestLength) {
+            return null;
+        }
+        final int count = buffer.getInt();
+        final Map<String, Integer> offsets = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            final String path = readString(buffer);
+            offsets.put(path, buffer.position());
+            buffer.position(buffer.position() + 2 * Long.BYTES);
+            final int keyLength = buffer.getInt();
+            if (keyLength < 0 || keyLength > buffer.remaining() - digestLength) {
+                throw new IllegalArgumentException("corrupted file key length " + keyLength);
+            }
+            buffer.position(buffer.position() + keyLength + digestLength);
+        }
+        return offsets;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("corrupted string length " + length);
+        }
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Fills digest from the cache if file wasn't changed since the previous run.
+     */
+    boolean lookup(String path, BasicFileAttributes attrs, byte[] digest) {
+        final Integer offset = offsets.get(path);
+        if (offset == null) {
+            return false;
+        }
+        final Entry entry = new Entry(attrs, null);
+        int position = offset;
+        if (loaded.getLong(position) != entry.size || loaded.getLong(position + Long.BYTES) != entry.mtime) {
+            return false;
+        }
+        position += 2 * Long.BYTES;
+        final int keyLength = loaded.getInt(position);
+        position += Integer.BYTES;
+        if (keyLength < 0 || keyLength > loaded.limit() - position - digestLength) {
+            return false;
+        }
+        final byte[] key = new byte[keyLength];
+        loaded.get(position, key);
+        if (!Arrays.equals(key, entry.key)) {
+            return false;
+        }
+        loaded.get(position + keyLength, digest, 0, digestLength);
+        put(path, attrs, digest);
+        return true;
+    }
+
+    /**
+     * Makes {@link #save} keep loaded entries of files that were not hashed during the current run,
+     * for runs that hash only some of the files.
+     */
+    void retainLoaded() {
+        retainLoaded = true;
+    }
+
+    void put(String path, BasicFileAttributes attrs, byte[] digest) {
+        current.put(path, new Entry(attrs, Arrays.copyOf(digest, digestLength)));
+    }
+
+    void save() throws IOException {
+        final Path parent = file.toAbsolutePath().getParent();
+        final List<String> retained = retainLoaded
+                ? offsets.keySet().stream().filter(path -> !current.containsKey(path)).collect(Collectors.toList())
+                : List.of();
+        final String suffix = "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp";
+        final Path temp = parent.resolve(file.getFileName() + suffix);
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE), 1 << 16))) {
+                out.writeInt(MAGIC);
+                writeBytes(out, algorithm.getName().getBytes(StandardCharsets.UTF_8));
+                out.writeInt(digestLength);
+                out.writeInt(current.size() + retained.size());
+                for (Map.Entry<String, Entry> e : current.entrySet()) {
+                    final Entry entry = e.getValue();
+                    writeBytes(out, e.getKey().getBytes(StandardCharsets.UTF_8));
+                    out.writeLong(entry.size);
+                    out.writeLong(entry.mtime);
+                    writeBytes(out, entry.key);
+                    out.write(entry.digest);
+                }
+                for (String path : retained) {
+                    final int offset = offsets.get(path);
+                    final byte[] entry = new byte[2 * Long.BYTES + Integer.BYTES
+                            + loaded.getInt(offset + 2 * Long.BYTES) + digestLength];
+                    loaded.get(offset, entry);
+                    writeBytes(out, path.getBytes(StandardCharsets.UTF_8));
+                    out.write(entry);
+                }
+            }
+            copyPermissions(file, temp);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Gives the new cache file permissions of the old one, a new cache file keeps default permissions.
+     */
+    private static void copyPermissions(Path from, Path to) throws IOException {
+        try {
+            Files.setPosixFilePermissions(to, Files.getPosixFilePermissions(from));
+        } catch (NoSuchFileException | UnsupportedOperationException ignored) {
+            // no old cache or not a POSIX file system
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static class Entry {
+        private final long size;
+        private final long mtime;
+        private final byte[] key;
+        private final byte[] digest;
+
+        private Entry(BasicFileAttributes attrs, byte[] digest) {
+            this.size = attrs.size();
+            this.mtime = attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+            this.key = attrs.fileKey() == null ? new byte[0] : attrs.fileKey().toString().getBytes(StandardCharsets.UTF_8);
+            this.digest = digest;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package info.kgeorgiy.ja.korobejnikov.walk;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes {@code [tag]<hex digest> <path>} lines to a channel through one large buffer.
+ * Digest is hex-encoded in place and ASCII paths are copied byte by byte, so no per-line objects are created.
+ */
+class HashWriter implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+
+    HashWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    static HashWriter open(Path file) throws IOException {
+        return new HashWriter(FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+    }
+
+    void write(String tag, byte[] digest, String path) throws IOException {
+        if (tag != null) {
+            writePath(tag);
+        }
+        write(digest, path);
+    }
+
+    void write(byte[] digest, String path) throws IOException {
+        ensure(2 * digest.length + 1);
+        for (int i = 0; i < digest.length; i++) {
+            buffer.put(HEX[(digest[i] >> 4) & 0xf]).put(HEX[digest[i] & 0xf]);
+        }
+        buffer.put((byte) ' ');
+        writePath(path);
+        ensure(LINE_SEPARATOR.length);
+        buffer.put(LINE_SEPARATOR);
+    }
+
+    void writeEmptyLine() throws IOException {
+        ensure(LINE_SEPARATOR.length);
+        buffer.put(LINE_SEPARATOR);
+    }
+
+    private void writePath(String path) throws IOException {
+        final int length = path.length();
+        for (int i = 0; i < length; i++) {
+            final char c = path.charAt(i);
+            if (c >= 0x80) {
+                encode(CharBuffer.wrap(path, i, length));
+                return;
+            }
+            if (!buffer.hasRemaining()) {
+                flushBuffer();
+            }
+            buffer.put((byte) c);
+        }
+    }
+
+    private void encode(CharBuffer chars) throws IOException {
+        encoder.reset();
+        while (true) {
+            final CoderResult result = encoder.encode(chars, buffer, true);
+            if (result.isUnderflow()) {
+                break;
+            }
+            if (result.isOverflow()) {
+                flushBuffer();
+            } else {
+                result.throwException();
+            }
+        }
+        while (encoder.flush(buffer).isOverflow()) {
+            flushBuffer();
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    void flush() throws IOException {
+        flushBuffer();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            channel.close();
+        }
+    }
+}
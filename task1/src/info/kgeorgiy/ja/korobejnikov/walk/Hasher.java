@@ -0,0 +1,20 @@
+package info.kgeorgiy.ja.korobejnikov.walk;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Streaming hash function. Instances are stateful and are not thread-safe.
+ */
+public interface Hasher {
+    /** Starts a new hash. */
+    void reset();
+
+    /** Consumes all remaining bytes of the buffer. */
+    void update(ByteBuffer buffer);
+
+    /** Length of the digest in bytes. */
+    int digestLength();
+
+    /** Writes {@link #digestLength()} bytes of the digest to the start of the target. */
+    void digest(byte[] target);
+}
@@ -0,0 +1,109 @@
+package info.kgeorgiy.ja.korobejnikov.walk;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Base of processors hashing several files at once and writing results in submission order.
+ * At most {@code capacity} files are in flight, results are kept in a ring buffer
+ * indexed by sequence number until every preceding line is written.
+ */
+abstract class OrderedFileProcessor implements FileProcessor {
+    private final HashWriter writer;
+    private final String[] names;
+    private long submitted = 0;
+    private long written = 0;
+    protected final byte[][] digests;
+    protected final boolean[] chunked;
+    protected final WalkStatistics statistics = WalkStatistics.get();
+
+    OrderedFileProcessor(final HashWriter writer, final HashAlgorithm algorithm, final int capacity) {
+        this.writer = writer;
+        this.digests = new byte[capacity][algorithm.digestLength()];
+        this.names = new String[capacity];
+        this.chunked = new boolean[capacity];
+    }
+
+    /**
+     * Starts hashing of the file to {@code digests[slot]} and {@code chunked[slot]},
+     * {@link #complete} should be called when it is done.
+     */
+    protected abstract void start(int slot, Path file, String name);
+
+    /**
+     * Releases resources after all results are written.
+     */
+    protected abstract void shutdown();
+
+    @Override
+    public void process(final Path file, final String name) throws IOException {
+        final int slot = reserve();
+        chunked[slot] = false;
+        statistics.filesVisited.increment();
+        statistics.pendingHashes.increment();
+        start(slot, file, name);
+    }
+
+    @Override
+    public void processFailed(final String path) throws IOException {
+        final int slot = reserve();
+        statistics.filesVisited.increment();
+        statistics.failures.increment();
+        Arrays.fill(digests[slot], (byte) 0);
+        chunked[slot] = false;
+        publish(slot, path);
+    }
+
+    protected void complete(final int slot, final String name) {
+        statistics.pendingHashes.decrement();
+        publish(slot, name);
+    }
+
+    private int reserve() throws IOException {
+        drain(names.length - 1);
+        synchronized (this) {
+            return (int) (submitted++ % names.length);
+        }
+    }
+
+    private synchronized void publish(final int slot, final String name) {
+        names[slot] = name;
+        notify();
+    }
+
+    private void drain(final int maxPending) throws IOException {
+        while (true) {
+            final int head;
+            synchronized (this) {
+                head = (int) (written % names.length);
+                try {
+                    while (submitted - written > maxPending && names[head] == null) {
+                        wait();
+                    }
+                } catch (final InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    throw new WalkException("Waiting for hashing threads interrupted", exception);
+                }
+                if (names[head] == null) {
+                    return;
+                }
+            }
+            // slot is reused only by this thread after it is released below
+            writer.write(chunked[head] ? ChunkedHasher.TAG : null, digests[head], names[head]);
+            synchronized (this) {
+                names[head] = null;
+                written++;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain(0);
+        } finally {
+            shutdown();
+        }
+    }
+}
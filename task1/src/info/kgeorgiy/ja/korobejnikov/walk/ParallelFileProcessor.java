@@ -0,0 +1,47 @@
+package info.kgeorgiy.ja.korobejnikov.walk;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Hashes files in worker threads, keeping up to {@code PENDING_PER_THREAD} files per thread in flight.
+ */
+class ParallelFileProcessor extends OrderedFileProcessor {
+    private static final int PENDING_PER_THREAD = 16;
+
+    private final ExecutorService executor;
+    private final ThreadLocal<FileHasher> hashers;
+
+    ParallelFileProcessor(final HashWriter writer, final HashAlgorithm algorithm, final HashCache cache,
+                          final ChunkedHasher chunked, final int threads) {
+        super(writer, algorithm, threads * PENDING_PER_THREAD);
+        this.hashers = ThreadLocal.withInitial(() -> new FileHasher(algorithm, cache, chunked));
+        this.executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @Override
+    protected void start(final int slot, final Path file, final String name) {
+        executor.execute(() -> {
+            boolean hashed = false;
+            try {
+                final FileHasher hasher = hashers.get();
+                final byte[] digest = hasher.hash(file);
+                System.arraycopy(digest, 0, digests[slot], 0, digest.length);
+                chunked[slot] = hasher.isChunked();
+                hashed = true;
+            } finally {
+                if (!hashed) {
+                    Arrays.fill(digests[slot], (byte) 0);
+                }
+                complete(slot, name);
+            }
+        });
+    }
+
+    @Override
+    protected void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,169 @@
+package info.kgeorgiy.ja.korobejnikov.walk;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Walks directories in a work-stealing pool, forking a task per subdirectory.
+ * Every task lists its directory in {@link DirectoryStream} order and keeps subdirectory tasks in place,
+ * so the calling thread feeds files to the processor in the same order as {@link Files#walkFileTree}
+ * while deeper directories are still being listed.
+ * <p>
+ * At most {@code parallelism * LOOKAHEAD} listed directories wait for the calling thread. Subdirectories found
+ * when the window is full are not forked and are listed later, by the calling thread itself or as soon as
+ * it drains the window, so memory is bounded by the window and the depth of the tree.
+ */
+class ParallelWalker implements AutoCloseable {
+    private static final int LOOKAHEAD = 64;
+
+    private final ForkJoinPool pool;
+    private final Semaphore window;
+
+    ParallelWalker(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+        this.window = new Semaphore(parallelism * LOOKAHEAD);
+    }
+
+    void walk(Path root, FileProcessor processor) throws IOException {
+        final BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(root, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            processor.processFailed(root.toString());
+            return;
+        }
+        if (attrs.isDirectory()) {
+            consume(new DirectoryTask(root), processor);
+        } else {
+            processor.process(root);
+        }
+    }
+
+    private void consume(DirectoryTask task, FileProcessor processor) throws IOException {
+        final List<Entry> entries;
+        try {
+            entries = task.result();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        for (Entry entry : entries) {
+            if (entry.directory != null && !entry.directory.tryFork()) {
+                break;
+            }
+        }
+        for (Entry entry : entries) {
+            if (entry.directory != null) {
+                consume(entry.directory, processor);
+            } else if (entry.failed) {
+                processor.processFailed(entry.path.toString());
+            } else {
+                processor.process(entry.path);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    private static class Entry {
+        private final Path path;
+        private final boolean failed;
+        private final DirectoryTask directory;
+
+        private Entry(Path path, boolean failed, DirectoryTask directory) {
+            this.path = path;
+            this.failed = failed;
+            this.directory = directory;
+        }
+    }
+
+    private class DirectoryTask extends RecursiveTask<List<Entry>> {
+        private static final long serialVersionUID = 7046297312582915468L;
+
+        private final Path dir;
+        private boolean forked = false;
+
+        private DirectoryTask(Path dir) {
+            this.dir = dir;
+            WalkStatistics.get().pendingDirectories.increment();
+        }
+
+        /**
+         * Starts listing in the pool if the window is not full, returns {@code false} if it is.
+         */
+        private boolean tryFork() {
+            if (!forked) {
+                if (!window.tryAcquire()) {
+                    return false;
+                }
+                forked = true;
+                pool.execute(this);
+            }
+            return true;
+        }
+
+        /**
+         * Waits for the forked listing or lists the directory in the calling thread.
+         */
+        private List<Entry> result() {
+            if (!forked) {
+                return compute();
+            }
+            try {
+                return join();
+            } finally {
+                window.release();
+            }
+        }
+
+        @Override
+        protected List<Entry> compute() {
+            try {
+                return list();
+            } finally {
+                WalkStatistics.get().pendingDirectories.decrement();
+            }
+        }
+
+        private List<Entry> list() {
+            final List<Entry> entries = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path child : stream) {
+                    entries.add(entry(child));
+                }
+            } catch (DirectoryIteratorException e) {
+                throw new UncheckedIOException(e.getCause());
+            } catch (IOException e) {
+                entries.clear();
+                entries.add(new Entry(dir, true, null));
+            }
+            return entries;
+        }
+
+        private Entry entry(Path path) {
+            try {
+                if (Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS).isDirectory()) {
+                    final DirectoryTask task = new DirectoryTask(path);
+                    task.tryFork();
+                    return new Entry(path, false, task);
+                }
+                return new Entry(path, false, null);
+            } catch (IOException e) {
+                return new Entry(path, true, null);
+            }
+        }
+    }
+}
@@ -1,35 +1,52 @@
 package info.kgeorgiy.ja.korobejnikov.walk;
 
-import java.io.BufferedInputStream;
-import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 
 
-public class PjwHash {
+public class PjwHash implements Hasher {
+    private static final ThreadLocal<FileHasher> FILE_HASHER =
+            ThreadLocal.withInitial(() -> new FileHasher(HashAlgorithm.PJW, null, null));
+
+    private long hash = 0;
+
     public static long fileToPjw(Path path) {
-        try (BufferedInputStream bufferedInputStream = new BufferedInputStream(Files.newInputStream(path), 1024)) {
-            long hash = 0;
-            long high;
-            int length;
-            byte[] buffer = new byte[1024];
-            while ((length = bufferedInputStream.read(buffer)) >= 0) {
-                for (int i = 0; i < length; i++) {
-                    int bit = buffer[i];
-                    hash = (hash << 8) + (bit & 0xff);
-                    if ((high = hash & 0xFF00_0000_0000_0000L) != 0) {
-                        hash ^= high >> 48;
-                        hash &= ~high;
-                    }
-                }
-            }
-            return hash;
-        } catch (IOException e) {
-            return 0;
-        }
+        return ByteBuffer.wrap(FILE_HASHER.get().hash(path)).getLong();
     }
 
     public static String concatHashPath(long hash, String filename) {
         return String.format("%016x", hash) + " " + filename + System.lineSeparator();
     }
+
+    @Override
+    public void reset() {
+        hash = 0;
+    }
+
+    @Override
+    public void update(ByteBuffer buffer) {
+        long hash = this.hash;
+        long high;
+        for (int i = buffer.position(), limit = buffer.limit(); i < limit; i++) {
+            hash = (hash << 8) + (buffer.get(i) & 0xff);
+            if ((high = hash & 0xFF00_0000_0000_0000L) != 0) {
+                hash ^= high >> 48;
+                hash &= ~high;
+            }
+        }
+        this.hash = hash;
+        buffer.position(buffer.limit());
+    }
+
+    @Override
+    public int digestLength() {
+        return Long.BYTES;
+    }
+
+    @Override
+    public void digest(byte[] target) {
+        for (int i = 0; i < Long.BYTES; i++) {
+            target[i] = (byte) (hash >>> (56 - 8 * i));
+        }
+    }
 }
@@ -0,0 +1,58 @@
+package info.kgeorgiy.ja.korobejnikov.walk;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically prints {@link WalkStatistics} to {@code System.err}.
+ */
+class ProgressReporter implements AutoCloseable {
+    private final WalkStatistics statistics = WalkStatistics.get();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "walk-progress");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final long startFiles = statistics.getFilesVisited();
+    private final long startFailures = statistics.getFailures();
+    private final long startBytes = statistics.getBytesHashed();
+    private final long start = System.nanoTime();
+    private long lastBytes = startBytes;
+    private long last = start;
+
+    ProgressReporter(int periodSeconds) {
+        executor.scheduleAtFixedRate(this::report, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    private synchronized void report() {
+        final long now = System.nanoTime();
+        final long bytes = statistics.getBytesHashed();
+        System.err.printf("files: %d, failures: %d, hashed: %.1f MB, %.1f MB/s, pending hashes: %d, pending directories: %d%n",
+                statistics.getFilesVisited() - startFiles,
+                statistics.getFailures() - startFailures,
+                (bytes - startBytes) / 1e6,
+                WalkStatistics.megabytesPerSecond(bytes - lastBytes, now - last),
+                statistics.getPendingHashes(),
+                statistics.getPendingDirectories());
+        lastBytes = bytes;
+        last = now;
+    }
+
+    /**
+     * Closes reporter if there is one.
+     */
+    static void close(ProgressReporter reporter) {
+        if (reporter != null) {
+            reporter.close();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        executor.shutdownNow();
+        lastBytes = startBytes;
+        last = start;
+        report();
+    }
+}
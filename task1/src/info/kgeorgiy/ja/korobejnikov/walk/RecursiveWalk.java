@@ -9,16 +9,16 @@ public class RecursiveWalk {
 
     private static class MyFileVisitor extends SimpleFileVisitor<Path> {
 
-        private final Writer writer;
+        private final FileProcessor processor;
 
-        public MyFileVisitor(Writer writer) {
-            this.writer = writer;
+        public MyFileVisitor(FileProcessor processor) {
+            this.processor = processor;
         }
 
         @Override
         public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
             try {
-                writer.write(PjwHash.concatHashPath(PjwHash.fileToPjw(file), file.toString()));
+                processor.process(file);
             } catch (IOException exception) {
                 throw new WalkException("Output to " + exception.getMessage() + " interrupted by IO problem", exception);
             }
@@ -28,7 +28,7 @@ public class RecursiveWalk {
         @Override
         public FileVisitResult visitFileFailed(Path file, IOException e) {
                 try {
-                    writer.write(PjwHash.concatHashPath(0, file.toString()));
+                    processor.processFailed(file.toString());
                 } catch (IOException exception) {
                     throw new WalkException("Output to " + exception.getMessage() + " interrupted by IO problem", e);
                 }
@@ -36,7 +36,9 @@ public class RecursiveWalk {
         }
     }
 
-    private static void walk(Path inputFilePath, Path outputFilePath) throws WalkException {
+    private static final String USAGE = "[--algo pjw|fnv|xxhash64|sha-256] [--threads N] [--async READS] [--chunked SIZE] [--walkers N] [--cache FILE] [--progress SECONDS] [--dedup] input output";
+
+    private static void walk(Path inputFilePath, Path outputFilePath, WalkOptions options) throws WalkException {
         if (!Files.exists(inputFilePath)) {
             throw new WalkException(inputFilePath.toString() + " doesn't exist");
         }
@@ -47,13 +49,17 @@ public class RecursiveWalk {
                 throw new WalkException("Creating parent directory for " + exception.getMessage() + " interrupted by IO problems", exception);
             }
         }
+        final HashCache cache = options.loadCache();
         try (BufferedReader reader = Files.newBufferedReader(inputFilePath)) {
-            try (BufferedWriter writer = Files.newBufferedWriter(outputFilePath)) {
+            final ProgressReporter progress = options.createProgressReporter();
+            try (HashWriter writer = HashWriter.open(outputFilePath);
+                 FileProcessor processor = options.createProcessor(writer, cache);
+                 ParallelWalker walker = options.createWalker()) {
                 String line;
                 try {
                     while ((line = reader.readLine()) != null) {
                         try {
-                            processFile(line, writer);
+                            processFile(line, processor, walker);
                         } catch (IOException exception) {
                             throw new WalkException("Output to result file interrupted " + exception.getMessage(), exception);
                         }
@@ -63,41 +69,53 @@ public class RecursiveWalk {
                 }
             } catch (IOException exception) {
                 throw new WalkException("Output to result file interrupted " + exception.getMessage(), exception);
+            } finally {
+                ProgressReporter.close(progress);
             }
         } catch (FileNotFoundException exception) {
             throw new WalkException(exception.getMessage(), exception);
         } catch (IOException exception) {
             throw new WalkException("Can't open input file: ", exception);
         }
+        WalkOptions.saveCache(cache);
     }
 
-    public static void processFile(String stringPath, Writer writer) throws IOException {
+    static void processFile(String stringPath, FileProcessor processor, ParallelWalker walker) throws IOException {
         try {
             Path path = Path.of(stringPath);
-            Files.walkFileTree(path, new MyFileVisitor(writer));
+            if (walker != null) {
+                walker.walk(path, processor);
+            } else {
+                Files.walkFileTree(path, new MyFileVisitor(processor));
+            }
         } catch (InvalidPathException | FileNotFoundException exception) {
-            writer.write(PjwHash.concatHashPath(0, stringPath));
+            processor.processFailed(stringPath);
         }
     }
 
+    /**
+     * Runs the walk with command line {@code args}, unlike {@link #main} reports errors by {@link WalkException}.
+     */
+    static void run(String[] args) throws WalkException {
+        WalkOptions options = WalkOptions.parse(args, USAGE);
+        Path inputFilePath;
+        Path outputFilePath;
+        try {
+            inputFilePath = Path.of(options.input());
+        } catch (InvalidPathException exception) {
+            throw new WalkException("Invalid input file path " + exception.getMessage(), exception);
+        }
+        try {
+            outputFilePath = Path.of(options.output());
+        } catch (InvalidPathException exception) {
+            throw new WalkException("Invalid output file path " + exception.getMessage(), exception);
+        }
+        walk(inputFilePath, outputFilePath, options);
+    }
+
     public static void main(String[] args) {
         try {
-            if (args == null || args.length != 2 || args[0] == null || args[1] == null) {
-                throw new WalkException("Invalid number of arguments or arguments are null. Should be 2 arguments: input output");
-            }
-            Path inputFilePath;
-            Path outputFilePath;
-            try {
-                inputFilePath = Path.of(args[0]);
-            } catch (InvalidPathException exception) {
-                throw new WalkException("Invalid input file path " + exception.getMessage(), exception);
-            }
-            try {
-                outputFilePath = Path.of(args[1]);
-            } catch (InvalidPathException exception) {
-                throw new WalkException("Invalid output file path " + exception.getMessage(), exception);
-            }
-            walk(inputFilePath, outputFilePath);
+            run(args);
         } catch (WalkException exception) {
             System.err.println(exception.getMessage());
             System.out.println(exception.getMessage());
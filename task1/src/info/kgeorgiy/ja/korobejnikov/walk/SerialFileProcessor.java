@@ -0,0 +1,34 @@
+package info.kgeorgiy.ja.korobejnikov.walk;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+class SerialFileProcessor implements FileProcessor {
+    private final HashWriter writer;
+    private final FileHasher hasher;
+    private final WalkStatistics statistics = WalkStatistics.get();
+
+    SerialFileProcessor(final HashWriter writer, final HashAlgorithm algorithm, final HashCache cache,
+                        final ChunkedHasher chunked) {
+        this.writer = writer;
+        this.hasher = new FileHasher(algorithm, cache, chunked);
+    }
+
+    @Override
+    public void process(final Path file, final String name) throws IOException {
+        statistics.filesVisited.increment();
+        final byte[] digest = hasher.hash(file);
+        writer.write(hasher.isChunked() ? ChunkedHasher.TAG : null, digest, name);
+    }
+
+    @Override
+    public void processFailed(final String path) throws IOException {
+        statistics.filesVisited.increment();
+        statistics.failures.increment();
+        writer.write(hasher.failed(), path);
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,42 @@
+package info.kgeorgiy.ja.korobejnikov.walk;
+
+import java.nio.ByteBuffer;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+public class Sha256Hash implements Hasher {
+    private final MessageDigest messageDigest;
+
+    public Sha256Hash() {
+        try {
+            messageDigest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException exception) {
+            throw new WalkException("SHA-256 is not supported: " + exception.getMessage(), exception);
+        }
+    }
+
+    @Override
+    public void reset() {
+        messageDigest.reset();
+    }
+
+    @Override
+    public void update(ByteBuffer buffer) {
+        messageDigest.update(buffer);
+    }
+
+    @Override
+    public int digestLength() {
+        return messageDigest.getDigestLength();
+    }
+
+    @Override
+    public void digest(byte[] target) {
+        try {
+            messageDigest.digest(target, 0, digestLength());
+        } catch (DigestException exception) {
+            throw new IllegalArgumentException("Digest buffer is too small", exception);
+        }
+    }
+}
@@ -7,10 +7,13 @@ import java.nio.file.Path;
 
 
 public class Walk {
-    private static void walk(Path inputFilePath, Path outputFilePath) throws WalkException {
+    private static final String USAGE = "[--algo pjw|fnv|xxhash64|sha-256] [--threads N] [--async READS] [--chunked SIZE] [--cache FILE] [--progress SECONDS] [--dedup] input output";
+
+    private static void walk(Path inputFilePath, Path outputFilePath, WalkOptions options) throws WalkException {
         if (!Files.exists(inputFilePath)) {
             throw new WalkException(inputFilePath.toString() + " doesn't exist");
         }
+        final HashCache cache = options.loadCache();
         try (BufferedReader reader = Files.newBufferedReader(inputFilePath)) {
             if (outputFilePath.getParent() != null && Files.notExists(outputFilePath.getParent())) {
                 try {
@@ -19,60 +22,68 @@ public class Walk {
                     throw new WalkException("Can't create directory for output file: " + exception.getMessage(), exception);
                 }
             }
-            try (BufferedWriter writer = Files.newBufferedWriter(outputFilePath)) {
+            final ProgressReporter progress = options.createProgressReporter();
+            try (HashWriter writer = HashWriter.open(outputFilePath);
+                 FileProcessor processor = options.createProcessor(writer, cache)) {
                 String line;
                 try {
                     while ((line = reader.readLine()) != null) {
-                        processFile(line, writer);
+                        processFile(line, processor);
                     }
                 } catch (IOException exception) {
                     throw new WalkException("Reading input file is interrupted:  " + exception.getMessage(), exception);
                 }
             } catch (IOException exception) {
                 throw new WalkException("Can't open output file: " + exception.getMessage(), exception);
+            } finally {
+                ProgressReporter.close(progress);
             }
         } catch (FileNotFoundException exception) {
             throw new WalkException("Input file not found: " + exception.getMessage(), exception);
         } catch (IOException exception) {
             throw new WalkException("Can't open input file: ", exception);
         }
+        WalkOptions.saveCache(cache);
     }
 
-    private static void processFile(String stringPath, Writer writer) throws WalkException {
+    private static void processFile(String stringPath, FileProcessor processor) throws WalkException {
         try {
-            writeResult(writer, PjwHash.concatHashPath(PjwHash.fileToPjw(Path.of(stringPath)), stringPath));
-        } catch (InvalidPathException exception) {
-            writeResult(writer, PjwHash.concatHashPath(0, stringPath));
+            try {
+                processor.process(Path.of(stringPath), stringPath);
+            } catch (InvalidPathException exception) {
+                processor.processFailed(stringPath);
+            }
+        } catch (IOException exception) {
+            throw new WalkException("Output interrupted: " + exception.getMessage(), exception);
         }
     }
 
-    private static void writeResult(Writer writer, String string) throws WalkException {
+    /**
+     * Runs the walk with command line {@code args}, unlike {@link #main} reports errors by {@link WalkException}.
+     */
+    static void run(String[] args) throws WalkException {
+        WalkOptions options = WalkOptions.parse(args, USAGE);
+        if (options.walkers() > 0) {
+            throw new WalkException("Option --walkers is only supported by RecursiveWalk. Usage: " + USAGE);
+        }
+        Path inputFilePath;
+        Path outputFilePath;
         try {
-            writer.write(string);
-        } catch (IOException exception) {
-            throw new WalkException("Output interrupted: " + exception.getMessage(), exception);
+            inputFilePath = Path.of(options.input());
+        } catch (InvalidPathException exception) {
+            throw new WalkException("Invalid input file path: " + exception.getMessage(), exception);
         }
-
+        try {
+            outputFilePath = Path.of(options.output());
+        } catch (InvalidPathException exception) {
+            throw new WalkException("Invalid output file path: " + exception.getMessage(), exception);
+        }
+        walk(inputFilePath, outputFilePath, options);
     }
 
     public static void main(String[] args) {
         try {
-            if (args == null || args.length != 2 || args[0] == null || args[1] == null) {
-                throw new WalkException("Invalid number of arguments or arguments are null. Should be 2 arguments: input output");
-            }
-            Path inputFilePath;
-            Path outputFilePath;
-            try {
-                inputFilePath = Path.of(args[0]);
-            } catch (InvalidPathException exception) {
-                throw new WalkException("Invalid input file path: " + exception.getMessage(), exception);
-            }
-            try {
-                outputFilePath = Path.of(args[1]);
-            } catch (InvalidPathException exception) {
-                throw new WalkException("Invalid output file path: " + exception.getMessage(), exception);
-            }
-            walk(inputFilePath, outputFilePath);
+            run(args);
         } catch (WalkException exception) {
             System.err.println(exception.getMessage());
             System.out.println(exception.getMessage());
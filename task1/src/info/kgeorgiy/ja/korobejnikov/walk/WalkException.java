@@ -1,6 +1,8 @@
 package info.kgeorgiy.ja.korobejnikov.walk;
 
 public class WalkException extends RuntimeException {
+    private static final long serialVersionUID = -2254337151370823367L;
+
     public WalkException(String message, Throwable cause) {
         super(message, cause);
     }
@@ -0,0 +1,174 @@
+package info.kgeorgiy.ja.korobejnikov.walk;
+
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command line of walk: {@code [--option value]... [--flag]... input output}.
+ */
+class WalkOptions {
+    private int threads = 1;
+    private int walkers = 0;
+    private int progress = 0;
+    private int asyncReads = 0;
+    private long chunkedThreshold = 0;
+    private HashAlgorithm algorithm = HashAlgorithm.PJW;
+    private String cache = null;
+    private boolean dedup = false;
+    private final List<String> positional = new ArrayList<>();
+
+    private WalkOptions() {
+    }
+
+    static WalkOptions parse(final String[] args, final String usage) throws WalkException {
+        if (args == null) {
+            throw new WalkException("Arguments are null. Usage: " + usage);
+        }
+        final WalkOptions options = new WalkOptions();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] == null) {
+                throw new WalkException("Argument " + (i + 1) + " is null. Usage: " + usage);
+            }
+            if (!args[i].startsWith("--")) {
+                options.positional.add(args[i]);
+                continue;
+            }
+            final String option = args[i];
+            if (option.equals("--dedup")) {
+                options.dedup = true;
+                continue;
+            }
+            if (i + 1 == args.length || args[i + 1] == null) {
+                throw new WalkException("Option " + option + " requires a value. Usage: " + usage);
+            }
+            final String value = args[++i];
+            switch (option) {
+                case "--threads":
+                    options.threads = parsePositive(option, value);
+                    break;
+                case "--walkers":
+                    options.walkers = parsePositive(option, value);
+                    break;
+                case "--async":
+                    options.asyncReads = parsePositive(option, value);
+                    break;
+                case "--chunked":
+                    options.chunkedThreshold = parseSize(option, value);
+                    break;
+                case "--progress":
+                    options.progress = parsePositive(option, value);
+                    break;
+                case "--algo":
+                    options.algorithm = HashAlgorithm.forName(value);
+                    break;
+                case "--cache":
+                    options.cache = value;
+                    break;
+                default:
+                    throw new WalkException("Unknown option " + option + ". Usage: " + usage);
+            }
+        }
+        if (options.positional.size() != 2) {
+            throw new WalkException("Invalid number of arguments. Usage: " + usage);
+        }
+        if (options.asyncReads > 0 && options.chunkedThreshold > 0) {
+            throw new WalkException("Options --async and --chunked can't be used together");
+        }
+        if (options.asyncReads > 0 && options.dedup) {
+            throw new WalkException("Options --async and --dedup can't be used together");
+        }
+        return options;
+    }
+
+    private static int parsePositive(final String option, final String value) throws WalkException {
+        try {
+            final int result = Integer.parseInt(value);
+            if (result > 0) {
+                return result;
+            }
+        } catch (final NumberFormatException ignored) {
+            // reported below
+        }
+        throw new WalkException("Option " + option + " should be a positive integer, but it's <" + value + ">");
+    }
+
+    private static long parseSize(final String option, final String value) throws WalkException {
+        final String units = "kmg";
+        final int unit = value.isEmpty() ? -1 : units.indexOf(Character.toLowerCase(value.charAt(value.length() - 1)));
+        try {
+            final long result = Long.parseLong(unit < 0 ? value : value.substring(0, value.length() - 1)) << (10 * (unit + 1));
+            if (result > 0) {
+                return result;
+            }
+        } catch (final NumberFormatException ignored) {
+            // reported below
+        }
+        throw new WalkException("Option " + option + " should be a positive size like 512, 64k, 100m or 2g, but it's <" + value + ">");
+    }
+
+    String input() {
+        return positional.get(0);
+    }
+
+    String output() {
+        return positional.get(1);
+    }
+
+    int threads() {
+        return threads;
+    }
+
+    int walkers() {
+        return walkers;
+    }
+
+    HashAlgorithm algorithm() {
+        return algorithm;
+    }
+
+    HashCache loadCache() throws WalkException {
+        if (cache == null) {
+            return null;
+        }
+        try {
+            return HashCache.load(Path.of(cache), algorithm);
+        } catch (InvalidPathException exception) {
+            throw new WalkException("Invalid cache file path: " + exception.getMessage(), exception);
+        }
+    }
+
+    FileProcessor createProcessor(final HashWriter writer, final HashCache cache) {
+        if (asyncReads > 0) {
+            return new AsyncFileProcessor(writer, algorithm, cache, threads, asyncReads);
+        }
+        final ChunkedHasher chunked = chunkedThreshold > 0 ? new ChunkedHasher(algorithm, chunkedThreshold) : null;
+        if (dedup) {
+            return new DuplicateFinder(writer, algorithm, cache, chunked, threads);
+        }
+        if (threads > 1) {
+            return new ParallelFileProcessor(writer, algorithm, cache, chunked, threads);
+        }
+        return new SerialFileProcessor(writer, algorithm, cache, chunked);
+    }
+
+    ProgressReporter createProgressReporter() {
+        return progress > 0 ? new ProgressReporter(progress) : null;
+    }
+
+    ParallelWalker createWalker() {
+        return walkers > 1 ? new ParallelWalker(walkers) : null;
+    }
+
+    static void saveCache(final HashCache cache) throws WalkException {
+        if (cache != null) {
+            try {
+                cache.save();
+            } catch (IOException exception) {
+                throw new WalkException("Can't save hash cache: " + exception.getMessage(), exception);
+            }
+        }
+    }
+}
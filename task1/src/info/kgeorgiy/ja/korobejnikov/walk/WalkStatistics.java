@@ -0,0 +1,91 @@
+package info.kgeorgiy.ja.korobejnikov.walk;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide walk counters. Counters are striped, so updating them from hashing threads is cheap.
+ * Registered as {@code info.kgeorgiy.ja.korobejnikov.walk:type=WalkStatistics} on first use.
+ */
+public class WalkStatistics implements WalkStatisticsMBean {
+    private static final WalkStatistics INSTANCE = new WalkStatistics();
+    private static final long RATE_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    final LongAdder filesVisited = new LongAdder();
+    final LongAdder failures = new LongAdder();
+    final LongAdder bytesHashed = new LongAdder();
+    final LongAdder cacheHits = new LongAdder();
+    final LongAdder pendingHashes = new LongAdder();
+    final LongAdder pendingDirectories = new LongAdder();
+    private final long start = System.nanoTime();
+    private long sampleTime = start;
+    private long sampleBytes = 0;
+    private double rate = 0;
+
+    private WalkStatistics() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+                    new ObjectName("info.kgeorgiy.ja.korobejnikov.walk:type=WalkStatistics"));
+        } catch (JMException e) {
+            System.err.println("Can't register walk statistics MBean: " + e.getMessage());
+        }
+    }
+
+    static WalkStatistics get() {
+        return INSTANCE;
+    }
+
+    @Override
+    public long getFilesVisited() {
+        return filesVisited.sum();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public long getBytesHashed() {
+        return bytesHashed.sum();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getPendingHashes() {
+        return pendingHashes.sum();
+    }
+
+    @Override
+    public long getPendingDirectories() {
+        return pendingDirectories.sum();
+    }
+
+    @Override
+    public synchronized double getMegabytesPerSecond() {
+        final long now = System.nanoTime();
+        if (now - sampleTime >= RATE_INTERVAL) {
+            final long bytes = getBytesHashed();
+            rate = megabytesPerSecond(bytes - sampleBytes, now - sampleTime);
+            sampleTime = now;
+            sampleBytes = bytes;
+        }
+        return rate;
+    }
+
+    @Override
+    public double getAverageMegabytesPerSecond() {
+        return megabytesPerSecond(getBytesHashed(), System.nanoTime() - start);
+    }
+
+    static double megabytesPerSecond(long bytes, long nanos) {
+        return nanos <= 0 ? 0 : bytes / 1e6 / (nanos / 1e9);
+    }
+}
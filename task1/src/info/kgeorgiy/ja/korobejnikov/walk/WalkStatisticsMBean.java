@@ -0,0 +1,27 @@
+package info.kgeorgiy.ja.korobejnikov.walk;
+
+/**
+ * JMX view of {@link WalkStatistics}.
+ */
+public interface WalkStatisticsMBean {
+    long getFilesVisited();
+
+    long getFailures();
+
+    long getBytesHashed();
+
+    long getCacheHits();
+
+    long getPendingHashes();
+
+    long getPendingDirectories();
+
+    /**
+     * Current hashing throughput in megabytes per second, over the time since the previous sample.
+     * A new sample is taken if the previous one is at least a second old.
+     */
+    double getMegabytesPerSecond();
+
+    /** Average hashing throughput since start in megabytes per second. */
+    double getAverageMegabytesPerSecond();
+}
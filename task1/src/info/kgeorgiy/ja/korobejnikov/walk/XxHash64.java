@@ -0,0 +1,126 @@
+package info.kgeorgiy.ja.korobejnikov.walk;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Streaming xxHash64 with zero seed.
+ */
+public class XxHash64 implements Hasher {
+    private static final long P1 = 0x9E3779B185EBCA87L;
+    private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long P3 = 0x165667B19E3779F9L;
+    private static final long P4 = 0x85EBCA77C2B2AE63L;
+    private static final long P5 = 0x27D4EB2F165667C5L;
+    private static final int STRIPE = 32;
+
+    private final ByteBuffer tail = ByteBuffer.allocate(STRIPE).order(ByteOrder.LITTLE_ENDIAN);
+    private long v1;
+    private long v2;
+    private long v3;
+    private long v4;
+    private long total;
+
+    public XxHash64() {
+        reset();
+    }
+
+    @Override
+    public void reset() {
+        v1 = P1 + P2;
+        v2 = P2;
+        v3 = 0;
+        v4 = -P1;
+        total = 0;
+        tail.clear();
+    }
+
+    @Override
+    public void update(ByteBuffer buffer) {
+        total += buffer.remaining();
+        if (tail.position() > 0) {
+            while (tail.hasRemaining() && buffer.hasRemaining()) {
+                tail.put(buffer.get());
+            }
+            if (tail.hasRemaining()) {
+                return;
+            }
+            stripe(tail, 0);
+            tail.clear();
+        }
+        int i = buffer.position();
+        final int limit = buffer.limit();
+        for (; i + STRIPE <= limit; i += STRIPE) {
+            stripe(buffer, i);
+        }
+        for (; i < limit; i++) {
+            tail.put(buffer.get(i));
+        }
+        buffer.position(limit);
+    }
+
+    private void stripe(ByteBuffer buffer, int index) {
+        v1 = round(v1, readLong(buffer, index));
+        v2 = round(v2, readLong(buffer, index + 8));
+        v3 = round(v3, readLong(buffer, index + 16));
+        v4 = round(v4, readLong(buffer, index + 24));
+    }
+
+    private static long readLong(ByteBuffer buffer, int index) {
+        final long value = buffer.getLong(index);
+        return buffer.order() == ByteOrder.LITTLE_ENDIAN ? value : Long.reverseBytes(value);
+    }
+
+    private static long round(long acc, long input) {
+        return Long.rotateLeft(acc + input * P2, 31) * P1;
+    }
+
+    private static long merge(long acc, long value) {
+        return (acc ^ round(0, value)) * P1 + P4;
+    }
+
+    @Override
+    public int digestLength() {
+        return Long.BYTES;
+    }
+
+    @Override
+    public void digest(byte[] target) {
+        long hash;
+        if (total >= STRIPE) {
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = merge(hash, v1);
+            hash = merge(hash, v2);
+            hash = merge(hash, v3);
+            hash = merge(hash, v4);
+        } else {
+            hash = P5;
+        }
+        hash += total;
+
+        final int end = tail.position();
+        int i = 0;
+        for (; i + 8 <= end; i += 8) {
+            hash ^= round(0, tail.getLong(i));
+            hash = Long.rotateLeft(hash, 27) * P1 + P4;
+        }
+        if (i + 4 <= end) {
+            hash ^= (tail.getInt(i) & 0xFFFF_FFFFL) * P1;
+            hash = Long.rotateLeft(hash, 23) * P2 + P3;
+            i += 4;
+        }
+        for (; i < end; i++) {
+            hash ^= (tail.get(i) & 0xff) * P5;
+            hash = Long.rotateLeft(hash, 11) * P1;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= P2;
+        hash ^= hash >>> 29;
+        hash *= P3;
+        hash ^= hash >>> 32;
+        for (int j = 0; j < Long.BYTES; j++) {
+            target[j] = (byte) (hash >>> (56 - 8 * j));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package info.kgeorgiy.ja.korobejnikov.arrayset;
+
+import java.util.function.Supplier;
+
+/**
+ * Minimal warmup-then-measure harness shared by array set benchmarks.
+ * Results of actions are published to a volatile field, so the JIT can't drop the measured work.
+ */
+class BenchmarkRunner {
+    private static volatile Object sink;
+
+    private final int warmup;
+    private final int iterations;
+
+    BenchmarkRunner(final int warmup, final int iterations) {
+        this.warmup = warmup;
+        this.iterations = iterations;
+    }
+
+    /**
+     * Runs action and returns {@code {average, best}} time of one iteration in nanoseconds.
+     */
+    long[] measure(final Supplier<?> action) {
+        for (int i = 0; i < warmup; i++) {
+            sink = action.get();
+        }
+        long best = Long.MAX_VALUE;
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+            final long start = System.nanoTime();
+            sink = action.get();
+            final long time = System.nanoTime() - start;
+            best = Math.min(best, time);
+            total += time;
+        }
+        return new long[]{total / iterations, best};
+    }
+}
@@ -0,0 +1,45 @@
+package info.kgeorgiy.ja.korobejnikov.arrayset;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Latency of {@link ArraySet#contains} for every {@link ArraySet.Layout} on sets of 1K up to {@code maxSize} Integers,
+ * half of the lookups are hits. Usage: {@code ContainsBenchmark [maxSize]}, 100M elements need about {@code -Xmx6g}.
+ */
+public class ContainsBenchmark {
+    private static final int QUERIES = 1 << 20;
+    private static final BenchmarkRunner RUNNER = new BenchmarkRunner(3, 5);
+
+    public static void main(final String[] args) {
+        final int maxSize = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        final Random random = new Random(3405691582L);
+        System.out.printf("%12s %16s %16s%n", "size", "SORTED ns/op", "EYTZINGER ns/op");
+        for (int size = 1000; size <= maxSize && size > 0; size *= 10) {
+            final List<Integer> elements = IntStream.range(0, size).map(i -> 2 * i).boxed()
+                    .collect(Collectors.toList());
+            final int bound = 2 * size;
+            final Integer[] queries = random.ints(QUERIES, 0, bound).boxed().toArray(Integer[]::new);
+            System.out.printf("%12d", size);
+            for (final ArraySet.Layout layout : ArraySet.Layout.values()) {
+                final ArraySet<Integer> set = new ArraySet<>(elements, null, layout);
+                System.out.printf(" %16.1f", measure(set, queries));
+            }
+            System.out.println();
+        }
+    }
+
+    private static double measure(final ArraySet<Integer> set, final Integer[] queries) {
+        return (double) RUNNER.measure(() -> {
+            int found = 0;
+            for (final Integer query : queries) {
+                if (set.contains(query)) {
+                    found++;
+                }
+            }
+            return found;
+        })[1] / queries.length;
+    }
+}
@@ -0,0 +1,137 @@
+package info.kgeorgiy.ja.korobejnikov.arrayset;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Checks {@link PersistentArraySet} against {@link TreeSet} on random updates that first grow the set
+ * and then remove almost all of it, including navigation through views and old versions,
+ * then compares cost of an update with rebuilding an {@link ArraySet}.
+ * Exits with code 1 on mismatch. Usage: {@code PersistentArraySetBenchmark [size]}.
+ */
+public class PersistentArraySetBenchmark {
+    private static final int UPDATES = 100_000;
+    private static final BenchmarkRunner RUNNER = new BenchmarkRunner(1, 3);
+
+    public static void main(final String[] args) {
+        final int size = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        final Random random = new Random(2305843009213693951L);
+        verify(check(random, null, false));
+        verify(check(random, Comparator.reverseOrder(), false));
+        verify(check(random, Comparator.nullsFirst(Comparator.naturalOrder()), true));
+        System.out.println("PersistentArraySet matches TreeSet");
+
+        final List<Integer> elements = IntStream.range(0, size).map(i -> 2 * i).boxed().collect(Collectors.toList());
+        final ArraySet<Integer> frozen = new ArraySet<>(elements);
+        final PersistentArraySet<Integer> initial = new PersistentArraySet<>(frozen);
+        final double update = RUNNER.measure(() -> {
+            PersistentArraySet<Integer> set = initial;
+            for (int i = 0; i < UPDATES; i++) {
+                set = set.with(2 * random.nextInt(size) + 1).without(2 * random.nextInt(size));
+            }
+            return set;
+        })[1] / 2.0 / UPDATES;
+        final double rebuild = RUNNER.measure(() -> {
+            final List<Integer> copy = new ArrayList<>(frozen);
+            copy.add(2 * random.nextInt(size) + 1);
+            return new ArraySet<>(copy);
+        })[1];
+        System.out.printf("%d elements: with/without %.1f us/op, ArraySet rebuild %.1f ms/op%n",
+                size, update / 1e3, rebuild / 1e6);
+    }
+
+    private static void verify(final String mismatch) {
+        if (mismatch != null) {
+            System.err.println("PersistentArraySet differs from TreeSet: " + mismatch);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Returns description of the first mismatch, or {@code null}.
+     */
+    private static String check(final Random random, final Comparator<Integer> comparator, final boolean withNull) {
+        PersistentArraySet<Integer> set = new PersistentArraySet<>(comparator);
+        final TreeSet<Integer> expected = new TreeSet<>(comparator);
+        final List<PersistentArraySet<Integer>> versions = new ArrayList<>();
+        final List<List<Integer>> snapshots = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            final int element = random.nextInt(1_000_000);
+            set = set.with(element);
+            expected.add(element);
+        }
+        if (withNull) {
+            set = set.with(null);
+            expected.add(null);
+        }
+        final List<Integer> removals = new ArrayList<>(expected);
+        Collections.shuffle(removals, random);
+        for (int i = 0; i < removals.size(); i++) {
+            set = set.without(removals.get(i));
+            expected.remove(removals.get(i));
+            if (random.nextInt(16) == 0) {
+                final int element = random.nextInt(1_000_000);
+                set = set.with(element);
+                expected.add(element);
+            }
+            if (set.size() != expected.size()) {
+                return "size after " + i + " removals";
+            }
+            if (i % 4096 == 0) {
+                versions.add(set);
+                snapshots.add(new ArrayList<>(expected));
+                final String mismatch = compare(set, expected, random);
+                if (mismatch != null) {
+                    return mismatch;
+                }
+            }
+        }
+        for (int i = 0; i < versions.size(); i++) {
+            if (!new ArrayList<>(versions.get(i)).equals(snapshots.get(i))) {
+                return "version " + i + " changed";
+            }
+        }
+        if (!new ArrayList<>(set.freeze()).equals(new ArrayList<>(expected))) {
+            return "freeze";
+        }
+        return null;
+    }
+
+    private static String compare(final NavigableSet<Integer> set, final NavigableSet<Integer> expected,
+                                  final Random random) {
+        if (!new ArrayList<>(set).equals(new ArrayList<>(expected))) {
+            return "elements";
+        }
+        for (int i = 0; i < 100; i++) {
+            final Integer key = random.nextInt(1_000_000);
+            if (set.contains(key) != expected.contains(key)
+                    || !Objects.equals(set.lower(key), expected.lower(key))
+                    || !Objects.equals(set.floor(key), expected.floor(key))
+                    || !Objects.equals(set.ceiling(key), expected.ceiling(key))
+                    || !Objects.equals(set.higher(key), expected.higher(key))) {
+                return "navigation by " + key;
+            }
+        }
+        if (expected.size() > 2) {
+            final Integer from = expected.higher(expected.first());
+            final Integer to = expected.lower(expected.last());
+            if (!new ArrayList<>(set.subSet(from, true, to, false)).equals(
+                    new ArrayList<>(expected.subSet(from, true, to, false)))
+                    || !new ArrayList<>(set.descendingSet().headSet(to, true)).equals(
+                    new ArrayList<>(expected.descendingSet().headSet(to, true)))
+                    || !new ArrayList<>(set.tailSet(from, false).descendingSet()).equals(
+                    new ArrayList<>(expected.tailSet(from, false).descendingSet()))) {
+                return "views from " + from + " to " + to;
+            }
+        }
+        return null;
+    }
+}
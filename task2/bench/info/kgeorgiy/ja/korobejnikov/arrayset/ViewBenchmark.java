@@ -0,0 +1,53 @@
+package info.kgeorgiy.ja.korobejnikov.arrayset;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Cost of narrowing {@link ArraySet} views in a loop and of accessing elements through the deepest view.
+ * Every step drops the first and the last element by {@code tailSet}/{@code headSet}.
+ * Usage: {@code ViewBenchmark [maxDepth]}.
+ */
+public class ViewBenchmark {
+    private static final int ACCESSES = 1 << 20;
+    private static final BenchmarkRunner RUNNER = new BenchmarkRunner(3, 5);
+
+    public static void main(final String[] args) {
+        final int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        final List<Integer> elements = IntStream.range(0, 2 * maxDepth + 1024).boxed().collect(Collectors.toList());
+        final ArraySet<Integer> set = new ArraySet<>(elements);
+        System.out.printf("%10s %16s %16s %16s%n", "depth", "narrow ns/step", "select ns/op", "contains ns/op");
+        for (int depth = 1; depth <= maxDepth; depth *= 10) {
+            final int steps = depth;
+            final long narrow = RUNNER.measure(() -> narrow(set, steps))[1];
+            final ArraySet<Integer> view = narrow(set, steps);
+            final long select = RUNNER.measure(() -> {
+                int found = 0;
+                for (int j = 0; j < ACCESSES; j++) {
+                    found += view.select(j & 511);
+                }
+                return found;
+            })[1];
+            final long contains = RUNNER.measure(() -> {
+                int found = 0;
+                for (int j = 0; j < ACCESSES; j++) {
+                    if (view.contains(steps + (j & 1023))) {
+                        found++;
+                    }
+                }
+                return found;
+            })[1];
+            System.out.printf("%10d %16.1f %16.1f %16.1f%n", depth,
+                    (double) narrow / depth, (double) select / ACCESSES, (double) contains / ACCESSES);
+        }
+    }
+
+    private static ArraySet<Integer> narrow(final ArraySet<Integer> set, final int depth) {
+        ArraySet<Integer> view = set;
+        for (int step = 0; step < depth; step++) {
+            view = view.tailSet(step + 1, true).headSet(set.size() - step - 1, false);
+        }
+        return view;
+    }
+}
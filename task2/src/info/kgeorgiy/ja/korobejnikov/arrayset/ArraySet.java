@@ -2,16 +2,38 @@ package info.kgeorgiy.ja.korobejnikov.arrayset;
 
 import java.util.*;
 
-public class ArraySet<E> extends AbstractSet<E> implements SortedSet<E> {
-    private final List<E> storage;
+public class ArraySet<E> extends AbstractSet<E> implements NavigableSet<E> {
+    /**
+     * Memory layout used by {@link #contains}.
+     */
+    public enum Layout {
+        /**
+         * Binary search over the sorted storage.
+         */
+        SORTED,
+        /**
+         * Additional copy of references in Eytzinger (BFS) order, so the first levels of every search share
+         * a few cache lines and next probes are adjacent. Costs one more reference per element.
+         */
+        EYTZINGER
+    }
+
+    private static final int GALLOP_RATIO = 8;
+
+    private final Object[] elements;
+    private final int from;
+    private final int to;
+    private final Comparator<? super E> storageComparator;
     private final Comparator<? super E> comparator;
+    private final boolean descending;
+    private final Object[] eytzinger;
 
     public ArraySet() {
-        this(List.of(), null);
+        this(new Object[0], null, Layout.SORTED);
     }
 
     public ArraySet(final Comparator<? super E> comparator) {
-        this(List.of(), comparator);
+        this(new Object[0], comparator, Layout.SORTED);
     }
 
     public ArraySet(final Collection<E> collection) {
@@ -19,20 +41,116 @@ public class ArraySet<E> extends AbstractSet<E> implements SortedSet<E> {
     }
 
     public ArraySet(final Collection<E> collection, final Comparator<? super E> comparator) {
-        this.comparator = comparator;
-        final SortedSet<E> set = new TreeSet<>(comparator);
-        set.addAll(collection);
-        storage = List.copyOf(set);
+        this(collection, comparator, Layout.SORTED);
+    }
+
+    public ArraySet(final Collection<E> collection, final Comparator<? super E> comparator, final Layout layout) {
+        this(sortedStorage(collection, comparator), comparator, layout);
+    }
+
+    private ArraySet(final Object[] elements, final Comparator<? super E> comparator, final Layout layout) {
+        this(elements, 0, elements.length, comparator, false,
+                layout == Layout.EYTZINGER ? eytzinger(elements) : null);
+    }
+
+    /**
+     * Storage is {@code elements[from, to)} sorted by {@code storageComparator}, views of any depth refer
+     * to the same root array. Descending view reverses indices instead of copying.
+     * Eytzinger layout is kept by the whole set and its descending view only, other views search the storage.
+     */
+    private ArraySet(final Object[] elements, final int from, final int to,
+                     final Comparator<? super E> storageComparator, final boolean descending,
+                     final Object[] eytzinger) {
+        this.elements = elements;
+        this.from = from;
+        this.to = to;
+        this.storageComparator = storageComparator;
+        this.comparator = descending ? Collections.reverseOrder(storageComparator) : storageComparator;
+        this.descending = descending;
+        this.eytzinger = eytzinger;
+    }
+
+    private static Object[] eytzinger(final Object[] sorted) {
+        final Object[] layout = new Object[sorted.length + 1];
+        fillEytzinger(sorted, layout, 0, 1);
+        return layout;
+    }
+
+    /**
+     * Fills subtree rooted at {@code node} by in-order traversal, returns index of the next element to place.
+     */
+    private static int fillEytzinger(final Object[] sorted, final Object[] layout, int index, final int node) {
+        if (node < layout.length) {
+            index = fillEytzinger(sorted, layout, index, 2 * node);
+            layout[node] = sorted[index++];
+            index = fillEytzinger(sorted, layout, index, 2 * node + 1);
+        }
+        return index;
     }
 
-    private ArraySet(final List<E> list, final Comparator<? super E> comparator) {
-        storage = list;
-        this.comparator = comparator;
+    /**
+     * Copies {@code collection} in one linear pass if it's already strictly sorted by {@code comparator},
+     * otherwise sorts (in parallel for large inputs) and drops equal elements,
+     * keeping the first of them like {@link TreeSet}. Nulls are rejected only in natural order,
+     * a null-tolerant comparator may order them like any other element.
+     */
+    @SuppressWarnings("unchecked")
+    private static <E> Object[] sortedStorage(final Collection<E> collection, final Comparator<? super E> comparator) {
+        final E[] array = (E[]) collection.toArray();
+        final Comparator<? super E> order = order(comparator);
+        final boolean sorted = collection instanceof SortedSet
+                && Objects.equals(((SortedSet<E>) collection).comparator(), comparator);
+        if (!sorted && !isStrictlySorted(array, comparator)) {
+            Arrays.parallelSort(array, order);
+            int size = 0;
+            for (final E element : array) {
+                requireComparable(element, comparator);
+                if (size == 0 || order.compare(array[size - 1], element) != 0) {
+                    array[size++] = element;
+                }
+            }
+            return Arrays.copyOf(array, size, Object[].class);
+        }
+        return array;
+    }
+
+    /**
+     * Wraps array that is already strictly sorted by {@code comparator} without copying it.
+     */
+    static <E> ArraySet<E> ofSorted(final Object[] sorted, final Comparator<? super E> comparator) {
+        return new ArraySet<>(sorted, comparator, Layout.SORTED);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <E> Comparator<? super E> order(final Comparator<? super E> comparator) {
+        return comparator != null ? comparator : (Comparator<? super E>) Comparator.naturalOrder();
+    }
+
+    private static <E> boolean isStrictlySorted(final E[] array, final Comparator<? super E> comparator) {
+        final Comparator<? super E> order = order(comparator);
+        for (int i = 0; i < array.length; i++) {
+            requireComparable(array[i], comparator);
+            if (i > 0 && order.compare(array[i - 1], array[i]) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static <E> void requireComparable(final E element, final Comparator<? super E> comparator) {
+        if (comparator == null) {
+            Objects.requireNonNull(element);
+        }
     }
 
     @Override
     public int size() {
-        return storage.size();
+        return to - from;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E get(final int index) {
+        return (E) elements[from + index];
     }
 
     private void validateEmpty() {
@@ -52,17 +170,51 @@ public class ArraySet<E> extends AbstractSet<E> implements SortedSet<E> {
 
     @Override
     public E first() {
-        return getElement(0);
+        return getElement(descending ? size() - 1 : 0);
     }
 
     @Override
     public E last() {
-        return getElement(storage.size() - 1);
+        return getElement(descending ? 0 : size() - 1);
     }
 
     private E getElement(final int index) {
         validateEmpty();
-        return storage.get(index);
+        return get(index);
+    }
+
+    private E getOrNull(final int index) {
+        return 0 <= index && index < size() ? get(index) : null;
+    }
+
+    @Override
+    public E lower(final E e) {
+        return getOrNull(descending ? getHigherIndex(e) : getIndex(storageComparator, e) - 1);
+    }
+
+    @Override
+    public E floor(final E e) {
+        return getOrNull(descending ? getIndex(storageComparator, e) : getHigherIndex(e) - 1);
+    }
+
+    @Override
+    public E ceiling(final E e) {
+        return getOrNull(descending ? getHigherIndex(e) - 1 : getIndex(storageComparator, e));
+    }
+
+    @Override
+    public E higher(final E e) {
+        return getOrNull(descending ? getIndex(storageComparator, e) - 1 : getHigherIndex(e));
+    }
+
+    @Override
+    public E pollFirst() {
+        throw new UnsupportedOperationException("ArraySet is immutable");
+    }
+
+    @Override
+    public E pollLast() {
+        throw new UnsupportedOperationException("ArraySet is immutable");
     }
 
     @Override
@@ -72,39 +224,259 @@ public class ArraySet<E> extends AbstractSet<E> implements SortedSet<E> {
 
     @Override
     public Iterator<E> iterator() {
-        return storage.iterator();
+        return new Iterator<>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size();
+            }
+
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return get(descending ? size() - 1 - index++ : index++);
+            }
+        };
+    }
+
+    @Override
+    public ArraySet<E> descendingSet() {
+        return new ArraySet<>(elements, from, to, storageComparator, !descending, eytzinger);
+    }
+
+    @Override
+    public Iterator<E> descendingIterator() {
+        return descendingSet().iterator();
     }
 
     @Override
-    public SortedSet<E> subSet(final E fromElement, final E toElement) {
+    public ArraySet<E> subSet(final E fromElement, final boolean fromInclusive,
+                                  final E toElement, final boolean toInclusive) {
         if (checkInvalidFromToElements(fromElement, toElement)) {
             throw new IllegalArgumentException("fromElement can't be more than toElement in subset");
         }
-        return subsetImpl(getIndex(comparator, fromElement), getIndex(comparator, toElement));
+        if (descending) {
+            return subsetImpl(getLeftIndex(toElement, toInclusive), getRightIndex(fromElement, fromInclusive));
+        }
+        return subsetImpl(getLeftIndex(fromElement, fromInclusive), getRightIndex(toElement, toInclusive));
     }
 
-    private SortedSet<E> subsetImpl(final int left, final int right) {
-        return new ArraySet<>(storage.subList(left, right), comparator);
+    @Override
+    public ArraySet<E> headSet(final E toElement, final boolean inclusive) {
+        if (descending) {
+            return subsetImpl(getLeftIndex(toElement, inclusive), size());
+        }
+        return subsetImpl(0, getRightIndex(toElement, inclusive));
     }
 
-    private int getIndex(final Comparator<? super E> comparator, final E element) {
-        final int index = Collections.binarySearch(storage, element, comparator);
-        return index < 0 ? -1 - index : index;
+    @Override
+    public ArraySet<E> tailSet(final E fromElement, final boolean inclusive) {
+        if (descending) {
+            return subsetImpl(0, getRightIndex(fromElement, inclusive));
+        }
+        return subsetImpl(getLeftIndex(fromElement, inclusive), size());
     }
 
     @Override
-    public SortedSet<E> headSet(final E toElement) {
-        return subsetImpl(0, getIndex(comparator, toElement));
+    public ArraySet<E> subSet(final E fromElement, final E toElement) {
+        return subSet(fromElement, true, toElement, false);
     }
 
     @Override
-    public SortedSet<E> tailSet(final E fromElement) {
-        return subsetImpl(getIndex(comparator, fromElement), size());
+    public ArraySet<E> headSet(final E toElement) {
+        return headSet(toElement, false);
+    }
+
+    @Override
+    public ArraySet<E> tailSet(final E fromElement) {
+        return tailSet(fromElement, true);
+    }
+
+    private ArraySet<E> subsetImpl(final int left, final int right) {
+        return new ArraySet<>(elements, from + left, from + Math.max(left, right), storageComparator, descending, null);
+    }
+
+    /**
+     * Returns number of elements of this set that precede {@code element} in its order.
+     */
+    public int rank(final E element) {
+        return descending ? size() - getHigherIndex(element) : getIndex(storageComparator, element);
+    }
+
+    /**
+     * Returns element with the given {@code index} in order of this set, in O(1).
+     */
+    public E select(final int index) {
+        Objects.checkIndex(index, size());
+        return get(descending ? size() - 1 - index : index);
+    }
+
+    /**
+     * Returns view of elements with indices from {@code fromIndex} inclusive to {@code toIndex} exclusive.
+     */
+    public ArraySet<E> range(final int fromIndex, final int toIndex) {
+        Objects.checkFromToIndex(fromIndex, toIndex, size());
+        return descending ? subsetImpl(size() - toIndex, size() - fromIndex) : subsetImpl(fromIndex, toIndex);
+    }
+
+    /**
+     * Index of the first stored element not less than {@code element}.
+     */
+    private int getIndex(final Comparator<? super E> comparator, final E element) {
+        final int index = search(comparator, element);
+        return index < 0 ? -1 - index : index;
+    }
+
+    /**
+     * Returns index of {@code element} in storage or {@code -(insertion point) - 1}, like {@link Arrays#binarySearch}.
+     */
+    @SuppressWarnings("unchecked")
+    private int search(final Comparator<? super E> comparator, final E element) {
+        final int index = Arrays.binarySearch((E[]) elements, from, to, element, comparator);
+        return index < 0 ? index + from : index - from;
+    }
+
+    /**
+     * Index of the first stored element greater than {@code element}.
+     */
+    private int getHigherIndex(final E element) {
+        final int index = search(storageComparator, element);
+        return index < 0 ? -1 - index : index + 1;
+    }
+
+    private int getLeftIndex(final E element, final boolean inclusive) {
+        return inclusive ? getIndex(storageComparator, element) : getHigherIndex(element);
+    }
+
+    private int getRightIndex(final E element, final boolean inclusive) {
+        return inclusive ? getHigherIndex(element) : getIndex(storageComparator, element);
+    }
+
+    /**
+     * Returns elements of both sets, equal elements are taken from this set.
+     * Both sets should have the same order, runs are skipped by galloping when sizes differ a lot.
+     */
+    public ArraySet<E> union(final ArraySet<E> other) {
+        return merge(other, true, true, true);
+    }
+
+    /**
+     * Returns elements of this set contained in {@code other},
+     * in O(min(n, m) log(max(n, m) / min(n, m))) comparisons for skewed sizes.
+     */
+    public ArraySet<E> intersect(final ArraySet<E> other) {
+        return merge(other, false, true, false);
+    }
+
+    /**
+     * Returns elements of this set not contained in {@code other}.
+     */
+    public ArraySet<E> difference(final ArraySet<E> other) {
+        return merge(other, true, false, false);
+    }
+
+    /**
+     * Merges storages of both sets, {@code onlyThis}, {@code both} and {@code onlyOther} tell which elements to keep.
+     */
+    private ArraySet<E> merge(final ArraySet<E> other,
+                              final boolean onlyThis, final boolean both, final boolean onlyOther) {
+        if (descending != other.descending || !Objects.equals(storageComparator, other.storageComparator)) {
+            throw new IllegalArgumentException("Can't merge ArraySets with different orders");
+        }
+        final ArraySet<E> left = this;
+        final ArraySet<E> right = other;
+        final Comparator<? super E> order = order(storageComparator);
+        final boolean gallop = Math.min(left.size(), right.size()) * GALLOP_RATIO < Math.max(left.size(), right.size());
+        final int capacity = onlyThis ? left.size() : both ? Math.min(left.size(), right.size()) : 0;
+        final Object[] result = new Object[capacity + (onlyOther ? right.size() : 0)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < left.size() && j < right.size()) {
+            final int cmp = order.compare(left.get(i), right.get(j));
+            if (cmp < 0) {
+                final int next = skipLess(left, i, right.get(j), order, gallop);
+                size = copy(left, i, next, onlyThis, result, size);
+                i = next;
+            } else if (cmp > 0) {
+                final int next = skipLess(right, j, left.get(i), order, gallop);
+                size = copy(right, j, next, onlyOther, result, size);
+                j = next;
+            } else {
+                if (both) {
+                    result[size++] = left.get(i);
+                }
+                i++;
+                j++;
+            }
+        }
+        size = copy(left, i, left.size(), onlyThis, result, size);
+        size = copy(right, j, right.size(), onlyOther, result, size);
+        final Object[] merged = Arrays.copyOf(result, size);
+        return new ArraySet<>(merged, 0, size, storageComparator, descending, null);
+    }
+
+    private static <E> int copy(final ArraySet<E> list, final int from, final int to, final boolean keep,
+                                final Object[] result, int size) {
+        if (keep) {
+            for (int i = from; i < to; i++) {
+                result[size++] = list.get(i);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the first index after {@code from} whose element is not less than {@code key},
+     * {@code list.get(from)} should be less than {@code key}.
+     * Galloping probes {@code from + 1, from + 2, from + 4...} and then searches the last interval.
+     */
+    private static <E> int skipLess(final ArraySet<E> list, final int from, final E key,
+                                    final Comparator<? super E> order, final boolean gallop) {
+        if (!gallop) {
+            return from + 1;
+        }
+        int low = from;
+        int step = 1;
+        while (from + step < list.size() && order.compare(list.get(from + step), key) < 0) {
+            low = from + step;
+            step <<= 1;
+        }
+        int high = Math.min(from + step, list.size());
+        while (high - low > 1) {
+            final int mid = (low + high) >>> 1;
+            if (order.compare(list.get(mid), key) < 0) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        return high;
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public boolean contains(final Object o) {
-        return (Collections.binarySearch(storage, (E) o, comparator) >= 0);
+        if (eytzinger != null) {
+            return containsEytzinger((E) o);
+        }
+        return search(storageComparator, (E) o) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean containsEytzinger(final E element) {
+        final Comparator<? super E> order = order(storageComparator);
+        int node = 1;
+        while (node < eytzinger.length) {
+            final int cmp = order.compare((E) eytzinger[node], element);
+            if (cmp == 0) {
+                return true;
+            }
+            node = 2 * node + (cmp < 0 ? 1 : 0);
+        }
+        return false;
     }
 }
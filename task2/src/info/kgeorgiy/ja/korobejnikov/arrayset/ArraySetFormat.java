@@ -0,0 +1,141 @@
+package info.kgeorgiy.ja.korobejnikov.arrayset;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.PrimitiveIterator;
+import java.util.SortedSet;
+
+/**
+ * Binary format of sorted sets that are memory-mapped and queried in place, without materializing elements.
+ * <p>
+ * File starts with a big-endian header {@code magic, type, count, 0} followed by {@code count} sorted
+ * {@code int}s or {@code long}s, or for strings by {@code count + 1} heap offsets and the string heap.
+ * Every string is stored in one byte per char if all its chars fit (high bit of its offset is clear)
+ * or in two bytes per char otherwise, so stored strings compare char by char exactly as {@link String#compareTo}.
+ * Files are limited to 2 GB.
+ */
+public final class ArraySetFormat {
+    private static final int MAGIC = 0x41534554;
+    static final int HEADER_SIZE = 16;
+    private static final int INTS = 1;
+    private static final int LONGS = 2;
+    private static final int STRINGS = 3;
+    static final int UTF16 = 0x80000000;
+
+    private ArraySetFormat() {
+    }
+
+    public static void write(final Path file, final IntArraySet set) throws IOException {
+        try (DataOutputStream out = open(file, INTS, set.size())) {
+            for (final PrimitiveIterator.OfInt it = ascending(set).iterator(); it.hasNext(); ) {
+                out.writeInt(it.nextInt());
+            }
+        }
+    }
+
+    public static void write(final Path file, final LongArraySet set) throws IOException {
+        try (DataOutputStream out = open(file, LONGS, set.size())) {
+            for (final PrimitiveIterator.OfLong it = ascending(set).iterator(); it.hasNext(); ) {
+                out.writeLong(it.nextLong());
+            }
+        }
+    }
+
+    private static <S extends IndexedNavigableSet<?, S>> S ascending(final S set) {
+        return set.comparator() == null ? set : set.descendingSet();
+    }
+
+    /**
+     * Writes set of strings in natural order, like {@code ArraySet<String>} created without comparator.
+     */
+    public static void writeStrings(final Path file, final SortedSet<String> set) throws IOException {
+        if (set.comparator() != null) {
+            throw new IllegalArgumentException("Only sets of strings in natural order can be written");
+        }
+        final int[] offsets = new int[set.size() + 1];
+        long offset = 0;
+        int i = 0;
+        for (final String string : set) {
+            offsets[i++] = (int) offset | (isLatin1(string) ? 0 : UTF16);
+            offset += (long) string.length() * (isLatin1(string) ? 1 : 2);
+            if (offset > Integer.MAX_VALUE - HEADER_SIZE - 4L * offsets.length) {
+                throw new IllegalArgumentException("Strings don't fit in 2 GB");
+            }
+        }
+        offsets[i] = (int) offset;
+        try (DataOutputStream out = open(file, STRINGS, set.size())) {
+            for (final int start : offsets) {
+                out.writeInt(start);
+            }
+            for (final String string : set) {
+                if (isLatin1(string)) {
+                    out.writeBytes(string);
+                } else {
+                    out.writeChars(string);
+                }
+            }
+        }
+    }
+
+    private static boolean isLatin1(final String string) {
+        for (int i = 0; i < string.length(); i++) {
+            if (string.charAt(i) > 0xff) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static DataOutputStream open(final Path file, final int type, final int count) throws IOException {
+        final DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(type);
+        out.writeInt(count);
+        out.writeInt(0);
+        return out;
+    }
+
+    public static IntArraySet mapInts(final Path file) throws IOException {
+        final ByteBuffer data = map(file, INTS);
+        return new IntArraySet(data.position(HEADER_SIZE).slice().asIntBuffer().limit(data.getInt(8)));
+    }
+
+    public static LongArraySet mapLongs(final Path file) throws IOException {
+        final ByteBuffer data = map(file, LONGS);
+        return new LongArraySet(data.position(HEADER_SIZE).slice().asLongBuffer().limit(data.getInt(8)));
+    }
+
+    public static MappedStringSet mapStrings(final Path file) throws IOException {
+        final ByteBuffer data = map(file, STRINGS);
+        return new MappedStringSet(data, data.getInt(8));
+    }
+
+    private static ByteBuffer map(final Path file, final int type) throws IOException {
+        final MappedByteBuffer data;
+        try (FileChannel channel = FileChannel.open(file)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Invalid ArraySet file size " + channel.size() + ": " + file);
+            }
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        data.order(ByteOrder.BIG_ENDIAN);
+        if (data.getInt(0) != MAGIC || data.getInt(4) != type) {
+            throw new IOException("Not an ArraySet file of type " + type + ": " + file);
+        }
+        final long count = data.getInt(8);
+        final long elementSize = type == INTS ? Integer.BYTES : type == LONGS ? Long.BYTES : Integer.BYTES;
+        final long minSize = HEADER_SIZE + count * elementSize + (type == STRINGS ? Integer.BYTES : 0);
+        if (count < 0 || data.capacity() < minSize) {
+            throw new IOException("Truncated ArraySet file: " + file);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,253 @@
+package info.kgeorgiy.ja.korobejnikov.arrayset;
+
+import java.util.*;
+
+/**
+ * Base of immutable sets stored in an indexed sorted storage, such as a buffer or a chunk table.
+ * Subclasses provide element access and binary search over absolute indices, this class keeps view bounds
+ * {@code [from, to)} and direction and implements {@link NavigableSet} on top of them.
+ * <p>
+ * Search results are absolute indices or {@code -(insertion point) - 1}, like {@link Arrays#binarySearch},
+ * so primitive subclasses navigate by the same methods without boxing keys.
+ *
+ * @param <S> type of views
+ */
+abstract class IndexedNavigableSet<E, S extends IndexedNavigableSet<E, S>>
+        extends AbstractSet<E> implements NavigableSet<E> {
+    protected final int from;
+    protected final int to;
+    protected final boolean descending;
+    /**
+     * Order of the storage, {@code null} for natural order.
+     */
+    protected final Comparator<? super E> storageComparator;
+
+    protected IndexedNavigableSet(final int from, final int to, final boolean descending) {
+        this(from, to, descending, null);
+    }
+
+    protected IndexedNavigableSet(final int from, final int to, final boolean descending,
+                                  final Comparator<? super E> storageComparator) {
+        this.from = from;
+        this.to = to;
+        this.descending = descending;
+        this.storageComparator = storageComparator;
+    }
+
+    /**
+     * Returns element at absolute {@code index}.
+     */
+    protected abstract E get(int index);
+
+    /**
+     * Searches {@code key} in {@code [from, to)}.
+     */
+    protected abstract int search(E key);
+
+    /**
+     * Creates view of the same storage.
+     */
+    protected abstract S view(int from, int to, boolean descending);
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    private static int ceiling(final int found) {
+        return found < 0 ? -found - 1 : found;
+    }
+
+    private static int higher(final int found) {
+        return found < 0 ? -found - 1 : found + 1;
+    }
+
+    /**
+     * Absolute index of the greatest element strictly less than the searched key in the order of this set.
+     */
+    protected final int lowerIndex(final int found) {
+        return descending ? higher(found) : ceiling(found) - 1;
+    }
+
+    protected final int floorIndex(final int found) {
+        return descending ? ceiling(found) : higher(found) - 1;
+    }
+
+    protected final int ceilingIndex(final int found) {
+        return descending ? higher(found) - 1 : ceiling(found);
+    }
+
+    protected final int higherIndex(final int found) {
+        return descending ? ceiling(found) - 1 : higher(found);
+    }
+
+    protected final boolean inRange(final int index) {
+        return from <= index && index < to;
+    }
+
+    /**
+     * Absolute index of the {@code position}-th element in the order of this set.
+     */
+    protected final int indexAt(final int position) {
+        return descending ? to - 1 - position : from + position;
+    }
+
+    protected final int firstIndex() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("Can't get element: " + getClass().getSimpleName() + " is empty");
+        }
+        return indexAt(0);
+    }
+
+    protected final int lastIndex() {
+        firstIndex();
+        return indexAt(size() - 1);
+    }
+
+    private E getOrNull(final int index) {
+        return inRange(index) ? get(index) : null;
+    }
+
+    @Override
+    public E lower(final E e) {
+        return getOrNull(lowerIndex(search(e)));
+    }
+
+    @Override
+    public E floor(final E e) {
+        return getOrNull(floorIndex(search(e)));
+    }
+
+    @Override
+    public E ceiling(final E e) {
+        return getOrNull(ceilingIndex(search(e)));
+    }
+
+    @Override
+    public E higher(final E e) {
+        return getOrNull(higherIndex(search(e)));
+    }
+
+    @Override
+    public E first() {
+        return get(firstIndex());
+    }
+
+    @Override
+    public E last() {
+        return get(lastIndex());
+    }
+
+    @Override
+    public E pollFirst() {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " is immutable");
+    }
+
+    @Override
+    public E pollLast() {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " is immutable");
+    }
+
+    @Override
+    public Comparator<? super E> comparator() {
+        return descending ? Collections.reverseOrder(storageComparator) : storageComparator;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+            private int position = 0;
+
+            @Override
+            public boolean hasNext() {
+                return position < size();
+            }
+
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return get(indexAt(position++));
+            }
+        };
+    }
+
+    @Override
+    public S descendingSet() {
+        return view(from, to, !descending);
+    }
+
+    @Override
+    public Iterator<E> descendingIterator() {
+        return descendingSet().iterator();
+    }
+
+    /**
+     * Checks that {@code fromElement} doesn't follow {@code toElement} in the order of this set.
+     */
+    protected final void checkRange(final int compare) {
+        if (descending ? compare < 0 : compare > 0) {
+            throw new IllegalArgumentException("fromElement can't be more than toElement in subset");
+        }
+    }
+
+    private static int leftBound(final int found, final boolean inclusive) {
+        return inclusive ? ceiling(found) : higher(found);
+    }
+
+    private static int rightBound(final int found, final boolean inclusive) {
+        return inclusive ? higher(found) : ceiling(found);
+    }
+
+    protected final S range(final int fromFound, final boolean fromInclusive,
+                            final int toFound, final boolean toInclusive) {
+        if (descending) {
+            return slice(leftBound(toFound, toInclusive), rightBound(fromFound, fromInclusive));
+        }
+        return slice(leftBound(fromFound, fromInclusive), rightBound(toFound, toInclusive));
+    }
+
+    protected final S head(final int found, final boolean inclusive) {
+        return descending ? slice(leftBound(found, inclusive), to) : slice(from, rightBound(found, inclusive));
+    }
+
+    protected final S tail(final int found, final boolean inclusive) {
+        return descending ? slice(from, rightBound(found, inclusive)) : slice(leftBound(found, inclusive), to);
+    }
+
+    private S slice(final int left, final int right) {
+        return view(left, Math.max(left, right), descending);
+    }
+
+    @Override
+    public S subSet(final E fromElement, final boolean fromInclusive, final E toElement, final boolean toInclusive) {
+        checkRange(ArraySet.order(storageComparator).compare(fromElement, toElement));
+        return range(search(fromElement), fromInclusive, search(toElement), toInclusive);
+    }
+
+    @Override
+    public S headSet(final E toElement, final boolean inclusive) {
+        return head(search(toElement), inclusive);
+    }
+
+    @Override
+    public S tailSet(final E fromElement, final boolean inclusive) {
+        return tail(search(fromElement), inclusive);
+    }
+
+    @Override
+    public S subSet(final E fromElement, final E toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    @Override
+    public S headSet(final E toElement) {
+        return headSet(toElement, false);
+    }
+
+    @Override
+    public S tailSet(final E fromElement) {
+        return tailSet(fromElement, true);
+    }
+}
@@ -0,0 +1,196 @@
+package info.kgeorgiy.ja.korobejnikov.arrayset;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.*;
+
+/**
+ * Counterpart of {@link ArraySet} for {@code int} keys in natural order, stored in a sorted
+ * {@link IntBuffer} without boxing.
+ * The buffer is either a heap array or direct memory, views share it and keep their own index bounds.
+ * Primitive methods follow the order of the view, like their boxed {@link NavigableSet} counterparts.
+ */
+public class IntArraySet extends IndexedNavigableSet<Integer, IntArraySet> {
+    private final IntBuffer storage;
+
+    public IntArraySet() {
+        this(IntBuffer.allocate(0));
+    }
+
+    public IntArraySet(final int... elements) {
+        this(IntBuffer.wrap(sorted(elements)));
+    }
+
+    public IntArraySet(final Collection<Integer> collection) {
+        this(collection.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    IntArraySet(final IntBuffer storage) {
+        this(storage, 0, storage.limit(), false);
+    }
+
+    private IntArraySet(final IntBuffer storage, final int from, final int to, final boolean descending) {
+        super(from, to, descending);
+        this.storage = storage;
+    }
+
+    /**
+     * Creates a set stored in direct memory, so it doesn't occupy heap.
+     */
+    public static IntArraySet offHeap(final int... elements) {
+        final int[] sorted = sorted(elements);
+        final IntBuffer storage = ByteBuffer.allocateDirect(sorted.length * Integer.BYTES)
+                .order(ByteOrder.nativeOrder())
+                .asIntBuffer();
+        storage.put(sorted).flip();
+        return new IntArraySet(storage);
+    }
+
+    private static int[] sorted(final int[] elements) {
+        final int[] array = elements.clone();
+        Arrays.sort(array);
+        int size = 0;
+        for (int i = 0; i < array.length; i++) {
+            if (size == 0 || array[size - 1] != array[i]) {
+                array[size++] = array[i];
+            }
+        }
+        return size == array.length ? array : Arrays.copyOf(array, size);
+    }
+
+    @Override
+    protected Integer get(final int index) {
+        return storage.get(index);
+    }
+
+    @Override
+    protected int search(final Integer key) {
+        return search((int) key);
+    }
+
+    private int search(final int key) {
+        int low = from;
+        int high = to - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int value = storage.get(mid);
+            if (value < key) {
+                low = mid + 1;
+            } else if (value > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -low - 1;
+    }
+
+    @Override
+    protected IntArraySet view(final int from, final int to, final boolean descending) {
+        return new IntArraySet(storage, from, to, descending);
+    }
+
+    private int getOrDefault(final int index, final int missing) {
+        return inRange(index) ? storage.get(index) : missing;
+    }
+
+    public boolean contains(final int key) {
+        return search(key) >= 0;
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        return o instanceof Integer && contains((int) (Integer) o);
+    }
+
+    /**
+     * Returns the greatest element less than or equal to {@code key}, or {@code missing} if there is none.
+     */
+    public int floor(final int key, final int missing) {
+        return getOrDefault(floorIndex(search(key)), missing);
+    }
+
+    /**
+     * Returns the least element greater than or equal to {@code key}, or {@code missing} if there is none.
+     */
+    public int ceiling(final int key, final int missing) {
+        return getOrDefault(ceilingIndex(search(key)), missing);
+    }
+
+    /**
+     * Returns the greatest element strictly less than {@code key}, or {@code missing} if there is none.
+     */
+    public int lower(final int key, final int missing) {
+        return getOrDefault(lowerIndex(search(key)), missing);
+    }
+
+    /**
+     * Returns the least element strictly greater than {@code key}, or {@code missing} if there is none.
+     */
+    public int higher(final int key, final int missing) {
+        return getOrDefault(higherIndex(search(key)), missing);
+    }
+
+    public int firstInt() {
+        return storage.get(firstIndex());
+    }
+
+    public int lastInt() {
+        return storage.get(lastIndex());
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int position = 0;
+
+            @Override
+            public boolean hasNext() {
+                return position < size();
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return storage.get(indexAt(position++));
+            }
+        };
+    }
+
+    public int[] toIntArray() {
+        final int[] array = new int[size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = storage.get(indexAt(i));
+        }
+        return array;
+    }
+
+    public IntArraySet subSet(final int fromElement, final boolean fromInclusive,
+                              final int toElement, final boolean toInclusive) {
+        checkRange(Integer.compare(fromElement, toElement));
+        return range(search(fromElement), fromInclusive, search(toElement), toInclusive);
+    }
+
+    public IntArraySet headSet(final int toElement, final boolean inclusive) {
+        return head(search(toElement), inclusive);
+    }
+
+    public IntArraySet tailSet(final int fromElement, final boolean inclusive) {
+        return tail(search(fromElement), inclusive);
+    }
+
+    public IntArraySet subSet(final int fromElement, final int toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    public IntArraySet headSet(final int toElement) {
+        return headSet(toElement, false);
+    }
+
+    public IntArraySet tailSet(final int fromElement) {
+        return tailSet(fromElement, true);
+    }
+}
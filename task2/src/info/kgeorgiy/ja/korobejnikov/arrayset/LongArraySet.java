@@ -0,0 +1,196 @@
+package info.kgeorgiy.ja.korobejnikov.arrayset;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.*;
+
+/**
+ * Counterpart of {@link ArraySet} for {@code long} keys in natural order, stored in a sorted
+ * {@link LongBuffer} without boxing.
+ * The buffer is either a heap array or direct memory, views share it and keep their own index bounds.
+ * Primitive methods follow the order of the view, like their boxed {@link NavigableSet} counterparts.
+ */
+public class LongArraySet extends IndexedNavigableSet<Long, LongArraySet> {
+    private final LongBuffer storage;
+
+    public LongArraySet() {
+        this(LongBuffer.allocate(0));
+    }
+
+    public LongArraySet(final long... elements) {
+        this(LongBuffer.wrap(sorted(elements)));
+    }
+
+    public LongArraySet(final Collection<Long> collection) {
+        this(collection.stream().mapToLong(Long::longValue).toArray());
+    }
+
+    LongArraySet(final LongBuffer storage) {
+        this(storage, 0, storage.limit(), false);
+    }
+
+    private LongArraySet(final LongBuffer storage, final int from, final int to, final boolean descending) {
+        super(from, to, descending);
+        this.storage = storage;
+    }
+
+    /**
+     * Creates a set stored in direct memory, so it doesn't occupy heap.
+     */
+    public static LongArraySet offHeap(final long... elements) {
+        final long[] sorted = sorted(elements);
+        final LongBuffer storage = ByteBuffer.allocateDirect(sorted.length * Long.BYTES)
+                .order(ByteOrder.nativeOrder())
+                .asLongBuffer();
+        storage.put(sorted).flip();
+        return new LongArraySet(storage);
+    }
+
+    private static long[] sorted(final long[] elements) {
+        final long[] array = elements.clone();
+        Arrays.sort(array);
+        int size = 0;
+        for (int i = 0; i < array.length; i++) {
+            if (size == 0 || array[size - 1] != array[i]) {
+                array[size++] = array[i];
+            }
+        }
+        return size == array.length ? array : Arrays.copyOf(array, size);
+    }
+
+    @Override
+    protected Long get(final int index) {
+        return storage.get(index);
+    }
+
+    @Override
+    protected int search(final Long key) {
+        return search((long) key);
+    }
+
+    private int search(final long key) {
+        int low = from;
+        int high = to - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final long value = storage.get(mid);
+            if (value < key) {
+                low = mid + 1;
+            } else if (value > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -low - 1;
+    }
+
+    @Override
+    protected LongArraySet view(final int from, final int to, final boolean descending) {
+        return new LongArraySet(storage, from, to, descending);
+    }
+
+    private long getOrDefault(final int index, final long missing) {
+        return inRange(index) ? storage.get(index) : missing;
+    }
+
+    public boolean contains(final long key) {
+        return search(key) >= 0;
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        return o instanceof Long && contains((long) (Long) o);
+    }
+
+    /**
+     * Returns the greatest element less than or equal to {@code key}, or {@code missing} if there is none.
+     */
+    public long floor(final long key, final long missing) {
+        return getOrDefault(floorIndex(search(key)), missing);
+    }
+
+    /**
+     * Returns the least element greater than or equal to {@code key}, or {@code missing} if there is none.
+     */
+    public long ceiling(final long key, final long missing) {
+        return getOrDefault(ceilingIndex(search(key)), missing);
+    }
+
+    /**
+     * Returns the greatest element strictly less than {@code key}, or {@code missing} if there is none.
+     */
+    public long lower(final long key, final long missing) {
+        return getOrDefault(lowerIndex(search(key)), missing);
+    }
+
+    /**
+     * Returns the least element strictly greater than {@code key}, or {@code missing} if there is none.
+     */
+    public long higher(final long key, final long missing) {
+        return getOrDefault(higherIndex(search(key)), missing);
+    }
+
+    public long firstLong() {
+        return storage.get(firstIndex());
+    }
+
+    public long lastLong() {
+        return storage.get(lastIndex());
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            private int position = 0;
+
+            @Override
+            public boolean hasNext() {
+                return position < size();
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return storage.get(indexAt(position++));
+            }
+        };
+    }
+
+    public long[] toLongArray() {
+        final long[] array = new long[size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = storage.get(indexAt(i));
+        }
+        return array;
+    }
+
+    public LongArraySet subSet(final long fromElement, final boolean fromInclusive,
+                              final long toElement, final boolean toInclusive) {
+        checkRange(Long.compare(fromElement, toElement));
+        return range(search(fromElement), fromInclusive, search(toElement), toInclusive);
+    }
+
+    public LongArraySet headSet(final long toElement, final boolean inclusive) {
+        return head(search(toElement), inclusive);
+    }
+
+    public LongArraySet tailSet(final long fromElement, final boolean inclusive) {
+        return tail(search(fromElement), inclusive);
+    }
+
+    public LongArraySet subSet(final long fromElement, final long toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    public LongArraySet headSet(final long toElement) {
+        return headSet(toElement, false);
+    }
+
+    public LongArraySet tailSet(final long fromElement) {
+        return tailSet(fromElement, true);
+    }
+}
@@ -0,0 +1,92 @@
+package info.kgeorgiy.ja.korobejnikov.arrayset;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Sorted set of strings in natural order read by {@link ArraySetFormat#mapStrings}.
+ * Lookups compare the key with strings in the mapped heap directly, strings are created only by iteration
+ * and element access. Views share the buffer and keep their own index bounds.
+ */
+public class MappedStringSet extends IndexedNavigableSet<String, MappedStringSet> {
+    private final ByteBuffer data;
+    private final int count;
+    private final int heap;
+
+    MappedStringSet(final ByteBuffer data, final int count) {
+        this(data, count, 0, count, false);
+    }
+
+    private MappedStringSet(final ByteBuffer data, final int count, final int from, final int to,
+                            final boolean descending) {
+        super(from, to, descending);
+        this.data = data;
+        this.count = count;
+        this.heap = ArraySetFormat.HEADER_SIZE + (count + 1) * Integer.BYTES;
+    }
+
+    private int offset(final int index) {
+        return data.getInt(ArraySetFormat.HEADER_SIZE + index * Integer.BYTES);
+    }
+
+    private int compare(final int index, final String key) {
+        final int offset = offset(index);
+        final boolean utf16 = (offset & ArraySetFormat.UTF16) != 0;
+        final int start = offset & ~ArraySetFormat.UTF16;
+        final int length = ((offset(index + 1) & ~ArraySetFormat.UTF16) - start) >> (utf16 ? 1 : 0);
+        final int common = Math.min(length, key.length());
+        for (int i = 0; i < common; i++) {
+            final char c = utf16 ? data.getChar(heap + start + 2 * i) : (char) (data.get(heap + start + i) & 0xff);
+            if (c != key.charAt(i)) {
+                return c - key.charAt(i);
+            }
+        }
+        return length - key.length();
+    }
+
+    @Override
+    protected String get(final int index) {
+        final int offset = offset(index);
+        final int start = offset & ~ArraySetFormat.UTF16;
+        final int length = (offset(index + 1) & ~ArraySetFormat.UTF16) - start;
+        final ByteBuffer string = data.duplicate().position(heap + start);
+        if ((offset & ArraySetFormat.UTF16) != 0) {
+            // chars are copied as is, decoding would replace unpaired surrogates
+            final char[] chars = new char[length / 2];
+            string.asCharBuffer().get(chars);
+            return new String(chars);
+        }
+        final byte[] bytes = new byte[length];
+        string.get(bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    protected int search(final String key) {
+        int low = from;
+        int high = to - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int cmp = compare(mid, key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -low - 1;
+    }
+
+    @Override
+    protected MappedStringSet view(final int from, final int to, final boolean descending) {
+        return new MappedStringSet(data, count, from, to, descending);
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        return o instanceof String && search((String) o) >= 0;
+    }
+}
@@ -0,0 +1,298 @@
+package info.kgeorgiy.ja.korobejnikov.arrayset;
+
+import java.util.*;
+
+/**
+ * Immutable sorted set whose {@link #with} and {@link #without} return new versions sharing storage with this one.
+ * Elements are kept in sorted chunks of {@code CHUNK_SIZE / 2} to {@code 2 * CHUNK_SIZE} elements, so an update
+ * copies one or two chunks and the chunk table instead of the whole array. {@link #freeze} packs a version
+ * into an {@link ArraySet}.
+ * <p>
+ * Nulls are rejected only in natural order, like in {@link ArraySet}.
+ * Navigation methods return read-only {@link View views} of a version.
+ */
+public class PersistentArraySet<E> extends IndexedNavigableSet<E, PersistentArraySet.View<E>> {
+    private static final int CHUNK_SIZE = 1 << 10;
+    private static final Object[][] NO_CHUNKS = new Object[0][];
+
+    private final Object[][] chunks;
+    private final int[] ends;
+    private final Comparator<? super E> order;
+
+    public PersistentArraySet() {
+        this((Comparator<? super E>) null);
+    }
+
+    public PersistentArraySet(final Comparator<? super E> comparator) {
+        this(NO_CHUNKS, new int[0], comparator);
+    }
+
+    /**
+     * Copies elements of {@code set} keeping its order, for example to update an {@link ArraySet}.
+     */
+    public PersistentArraySet(final SortedSet<E> set) {
+        this(split(set.toArray()), set.comparator());
+    }
+
+    private PersistentArraySet(final Object[][] chunks, final Comparator<? super E> comparator) {
+        this(chunks, ends(chunks), comparator);
+    }
+
+    private PersistentArraySet(final Object[][] chunks, final int[] ends, final Comparator<? super E> comparator) {
+        super(0, ends.length == 0 ? 0 : ends[ends.length - 1], false, comparator);
+        this.chunks = chunks;
+        this.ends = ends;
+        this.order = ArraySet.order(comparator);
+    }
+
+    /**
+     * Splits {@code sorted} into chunks of equal sizes, at most {@code CHUNK_SIZE} each.
+     */
+    private static Object[][] split(final Object[] sorted) {
+        final Object[][] chunks = new Object[(sorted.length + CHUNK_SIZE - 1) / CHUNK_SIZE][];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = Arrays.copyOfRange(sorted, (int) ((long) i * sorted.length / chunks.length),
+                    (int) ((long) (i + 1) * sorted.length / chunks.length));
+        }
+        return chunks;
+    }
+
+    private static int[] ends(final Object[][] chunks) {
+        final int[] ends = new int[chunks.length];
+        int end = 0;
+        for (int i = 0; i < chunks.length; i++) {
+            end += chunks[i].length;
+            ends[i] = end;
+        }
+        return ends;
+    }
+
+    private int start(final int chunk) {
+        return chunk == 0 ? 0 : ends[chunk - 1];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected E get(final int index) {
+        final int found = Arrays.binarySearch(ends, index);
+        final int chunk = found < 0 ? -found - 1 : found + 1;
+        return (E) chunks[chunk][index - start(chunk)];
+    }
+
+    @Override
+    protected int search(final E key) {
+        if (chunks.length == 0) {
+            return -1;
+        }
+        final int chunk = findChunk(key);
+        final int found = search(chunks[chunk], key);
+        return found < 0 ? found - start(chunk) : found + start(chunk);
+    }
+
+    @Override
+    protected View<E> view(final int from, final int to, final boolean descending) {
+        return new View<>(this, from, to, descending);
+    }
+
+    /**
+     * Returns index of the first chunk whose last element is not less than {@code element}, or the last chunk.
+     */
+    @SuppressWarnings("unchecked")
+    private int findChunk(final E element) {
+        int low = 0;
+        int high = chunks.length - 1;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            final Object[] chunk = chunks[mid];
+            if (order.compare((E) chunk[chunk.length - 1], element) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int search(final Object[] chunk, final E element) {
+        return Arrays.binarySearch((E[]) chunk, element, order);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean contains(final Object o) {
+        return chunks.length != 0 && search(chunks[findChunk((E) o)], (E) o) >= 0;
+    }
+
+    /**
+     * Returns a version containing {@code element}, or this set if it's already contained.
+     */
+    public PersistentArraySet<E> with(final E element) {
+        ArraySet.requireComparable(element, storageComparator);
+        if (chunks.length == 0) {
+            return new PersistentArraySet<>(new Object[][]{{element}}, storageComparator);
+        }
+        final int index = findChunk(element);
+        final Object[] chunk = chunks[index];
+        final int position = search(chunk, element);
+        if (position >= 0) {
+            return this;
+        }
+        final int insertion = -position - 1;
+        final Object[] updated = new Object[chunk.length + 1];
+        System.arraycopy(chunk, 0, updated, 0, insertion);
+        updated[insertion] = element;
+        System.arraycopy(chunk, insertion, updated, insertion + 1, chunk.length - insertion);
+        if (updated.length <= 2 * CHUNK_SIZE) {
+            return update(index, updated, 1);
+        }
+        return replace(index, 1, halves(updated));
+    }
+
+    /**
+     * Returns a version without {@code element}, or this set if it isn't contained.
+     * A chunk that becomes shorter than {@code CHUNK_SIZE / 2} is merged with its neighbour.
+     */
+    @SuppressWarnings("unchecked")
+    public PersistentArraySet<E> without(final Object element) {
+        if (chunks.length == 0) {
+            return this;
+        }
+        final int index = findChunk((E) element);
+        final Object[] chunk = chunks[index];
+        final int position = search(chunk, (E) element);
+        if (position < 0) {
+            return this;
+        }
+        final Object[] updated = new Object[chunk.length - 1];
+        System.arraycopy(chunk, 0, updated, 0, position);
+        System.arraycopy(chunk, position + 1, updated, position, updated.length - position);
+        if (chunks.length == 1) {
+            return updated.length == 0 ? replace(index, 1) : update(index, updated, -1);
+        }
+        if (updated.length >= CHUNK_SIZE / 2) {
+            return update(index, updated, -1);
+        }
+        final int left = index + 1 < chunks.length ? index : index - 1;
+        final Object[] merged = left == index ? concat(updated, chunks[index + 1]) : concat(chunks[left], updated);
+        return merged.length <= 2 * CHUNK_SIZE ? replace(left, 2, merged) : replace(left, 2, halves(merged));
+    }
+
+    /**
+     * Replaces chunk {@code index} with {@code chunk} that is {@code delta} elements longer.
+     */
+    private PersistentArraySet<E> update(final int index, final Object[] chunk, final int delta) {
+        final Object[][] newChunks = chunks.clone();
+        newChunks[index] = chunk;
+        final int[] newEnds = ends.clone();
+        for (int i = index; i < newEnds.length; i++) {
+            newEnds[i] += delta;
+        }
+        return new PersistentArraySet<>(newChunks, newEnds, storageComparator);
+    }
+
+    /**
+     * Replaces {@code count} chunks starting from {@code index} with {@code replacement}.
+     */
+    private PersistentArraySet<E> replace(final int index, final int count, final Object[]... replacement) {
+        final Object[][] newChunks = new Object[chunks.length - count + replacement.length][];
+        System.arraycopy(chunks, 0, newChunks, 0, index);
+        System.arraycopy(replacement, 0, newChunks, index, replacement.length);
+        System.arraycopy(chunks, index + count, newChunks, index + replacement.length, chunks.length - index - count);
+        return new PersistentArraySet<>(newChunks, storageComparator);
+    }
+
+    private static Object[][] halves(final Object[] chunk) {
+        return new Object[][]{
+                Arrays.copyOfRange(chunk, 0, chunk.length / 2),
+                Arrays.copyOfRange(chunk, chunk.length / 2, chunk.length)
+        };
+    }
+
+    private static Object[] concat(final Object[] left, final Object[] right) {
+        final Object[] result = Arrays.copyOf(left, left.length + right.length);
+        System.arraycopy(right, 0, result, left.length, right.length);
+        return result;
+    }
+
+    /**
+     * Packs this version into an {@link ArraySet} in one pass over the chunks.
+     */
+    public ArraySet<E> freeze() {
+        final Object[] elements = new Object[size()];
+        int size = 0;
+        for (final Object[] chunk : chunks) {
+            System.arraycopy(chunk, 0, elements, size, chunk.length);
+            size += chunk.length;
+        }
+        return ArraySet.ofSorted(elements, storageComparator);
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+            private int chunk = 0;
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return chunk < chunks.length;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final E element = (E) chunks[chunk][index++];
+                if (index == chunks[chunk].length) {
+                    chunk++;
+                    index = 0;
+                }
+                return element;
+            }
+        };
+    }
+
+    /**
+     * Read-only view of a range of a {@link PersistentArraySet} version, possibly in descending order.
+     */
+    public static final class View<E> extends IndexedNavigableSet<E, View<E>> {
+        private final PersistentArraySet<E> set;
+
+        private View(final PersistentArraySet<E> set, final int from, final int to, final boolean descending) {
+            super(from, to, descending, set.storageComparator);
+            this.set = set;
+        }
+
+        @Override
+        protected E get(final int index) {
+            return set.get(index);
+        }
+
+        @Override
+        protected int search(final E key) {
+            final int found = set.search(key);
+            final int point = found < 0 ? -found - 1 : found;
+            if (point < from) {
+                return -from - 1;
+            }
+            if (point > to || found >= to) {
+                return -to - 1;
+            }
+            return found;
+        }
+
+        @Override
+        protected View<E> view(final int from, final int to, final boolean descending) {
+            return new View<>(set, from, to, descending);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean contains(final Object o) {
+            return search((E) o) >= 0;
+        }
+    }
+}
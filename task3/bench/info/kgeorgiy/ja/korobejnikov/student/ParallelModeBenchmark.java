@@ -0,0 +1,98 @@
+package info.kgeorgiy.ja.korobejnikov.student;
+
+import info.kgeorgiy.java.advanced.student.GroupName;
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * Checks that parallel mode of {@link StudentDB} gives the same results as sequential one, including order
+ * of equal elements, then compares query time of both modes. Exits with code 1 on mismatch.
+ * Students share a few names and ids repeat, so almost every comparison is decided by a tie-break.
+ * Usage: {@code ParallelModeBenchmark [students] [threads]}.
+ */
+public class ParallelModeBenchmark {
+    private static final BenchmarkRunner RUNNER = new BenchmarkRunner(3, 5);
+    private static final GroupName[] GROUPS = GroupName.values();
+    private static final String[] FIRST_NAMES = {"Ann", "ann", "Bob", "Ivan", "Petr"};
+    private static final String[] LAST_NAMES = {"Ivanov", "ivanov", "Petrov", "Ng"};
+
+    public static void main(String[] args) {
+        final int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        final int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        final Random random = new Random(3458764513820540928L);
+        final List<Student> students = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            students.add(new Student(random.nextInt(size / 4 + 1), FIRST_NAMES[random.nextInt(FIRST_NAMES.length)],
+                    LAST_NAMES[random.nextInt(LAST_NAMES.length)], GROUPS[random.nextInt(GROUPS.length)]));
+        }
+        final Collection<Student> set = new HashSet<>(students);
+        final int[] indices = random.ints(1000, 0, size).toArray();
+
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            final StudentDB sequential = new StudentDB();
+            final StudentDB parallel = new StudentDB(pool, 1);
+            final Map<String, Function<StudentDB, Object>> queries = queries(students, set, indices);
+            for (Map.Entry<String, Function<StudentDB, Object>> query : queries.entrySet()) {
+                if (!Objects.equals(query.getValue().apply(sequential), query.getValue().apply(parallel))) {
+                    System.err.println("Parallel mode differs from sequential in " + query.getKey());
+                    System.exit(1);
+                }
+            }
+            System.out.printf("%d queries over %d students give the same results in both modes%n",
+                    queries.size(), size);
+
+            System.out.printf("%-28s %14s %14s%n", threads + " threads", "sequential", "parallel");
+            for (String name : List.of("getFullNames", "sortStudentsByName", "findStudentsByLastName",
+                    "getGroupsByName", "getMostPopularName", "sortStudentsByName top 20")) {
+                final Function<StudentDB, Object> query = queries.get(name);
+                System.out.printf("%-28s %14.1f %14.1f%n", name + ", ms", best(sequential, query), best(parallel, query));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static Map<String, Function<StudentDB, Object>> queries(List<Student> list, Collection<Student> set,
+                                                                    int[] indices) {
+        final Map<String, Function<StudentDB, Object>> queries = new LinkedHashMap<>();
+        queries.put("getFirstNames", db -> db.getFirstNames(list));
+        queries.put("getLastNames", db -> db.getLastNames(list));
+        queries.put("getGroups", db -> db.getGroups(list));
+        queries.put("getFullNames", db -> db.getFullNames(list));
+        queries.put("getDistinctFirstNames", db -> db.getDistinctFirstNames(list));
+        queries.put("getMaxStudentFirstName", db -> db.getMaxStudentFirstName(list));
+        queries.put("sortStudentsById", db -> db.sortStudentsById(list));
+        queries.put("sortStudentsById of set", db -> db.sortStudentsById(set));
+        queries.put("sortStudentsByName", db -> db.sortStudentsByName(list));
+        queries.put("sortStudentsByName of set", db -> db.sortStudentsByName(set));
+        queries.put("sortStudentsById top 20", db -> db.sortStudentsById(list, 20));
+        queries.put("sortStudentsByName top 20", db -> db.sortStudentsByName(list, 20));
+        queries.put("sortStudentsByName page", db -> db.sortStudentsByName(set, 1000, 50));
+        queries.put("findStudentsByFirstName", db -> db.findStudentsByFirstName(list, "Ann"));
+        queries.put("findStudentsByLastName", db -> db.findStudentsByLastName(set, "Ivanov"));
+        queries.put("findStudentsByGroup", db -> db.findStudentsByGroup(list, GROUPS[0]));
+        queries.put("findStudentNamesByGroup", db -> db.findStudentNamesByGroup(list, GROUPS[1]));
+        queries.put("getGroupsByName", db -> db.getGroupsByName(list));
+        queries.put("getGroupsById", db -> db.getGroupsById(set));
+        queries.put("getLargestGroup", db -> db.getLargestGroup(list));
+        queries.put("getLargestGroupFirstName", db -> db.getLargestGroupFirstName(list));
+        queries.put("getMostPopularName", db -> db.getMostPopularName(list));
+        queries.put("getFullNames by indices", db -> db.getFullNames(set, indices));
+        return queries;
+    }
+
+    private static double best(StudentDB db, Function<StudentDB, Object> query) {
+        return RUNNER.measure(() -> query.apply(db))[1] / 1e6;
+    }
+}
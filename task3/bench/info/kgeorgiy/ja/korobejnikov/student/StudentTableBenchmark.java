@@ -0,0 +1,67 @@
+package info.kgeorgiy.ja.korobejnikov.student;
+
+import info.kgeorgiy.java.advanced.student.GroupName;
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Extra memory of {@link ColumnarStudentDB} and query time of {@link StudentDB} over {@code List<Student>}
+ * against {@link ColumnarStudentDB} over its table.
+ * Every student gets its own name strings, as after reading them from a file.
+ * Usage: {@code StudentTableBenchmark [students]}.
+ */
+public class StudentTableBenchmark {
+    private static final BenchmarkRunner RUNNER = new BenchmarkRunner(3, 5);
+    private static final GroupName[] GROUPS = GroupName.values();
+
+    public static void main(String[] args) {
+        final int size = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        final Random random = new Random(7205759403792793L);
+        final long empty = usedMemory();
+        final List<Student> students = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            students.add(new Student(i, "First" + random.nextInt(500), "Last" + random.nextInt(20_000),
+                    GROUPS[random.nextInt(GROUPS.length)]));
+        }
+        final long list = usedMemory() - empty;
+        final ColumnarStudentDB columnar = new ColumnarStudentDB(students);
+        final List<Student> table = columnar.getStudents();
+        final long columns = usedMemory() - empty - list;
+        System.out.printf("%-28s %14s %14s%n", size + " students", "StudentDB", "Columnar");
+
+        final StudentDB db = new StudentDB();
+        measure("getFirstNames", students, db::getFirstNames, table, columnar::getFirstNames);
+        measure("getGroups", students, db::getGroups, table, columnar::getGroups);
+        measure("getMaxStudentFirstName", students, db::getMaxStudentFirstName,
+                table, columnar::getMaxStudentFirstName);
+        measure("findStudentsByLastName", students, s -> db.findStudentsByLastName(s, "Last42"),
+                table, s -> columnar.findStudentsByLastName(s, "Last42"));
+        measure("findStudentsByGroup", students, s -> db.findStudentsByGroup(s, GroupName.M3234),
+                table, s -> columnar.findStudentsByGroup(s, GroupName.M3234));
+
+        System.out.printf("%-28s %14.1f %14.1f%n", "memory, MB", list / 1e6, columns / 1e6);
+        Reference.reachabilityFence(columnar);
+    }
+
+    private static void measure(String name, List<Student> students, Function<List<Student>, Object> query,
+                                List<Student> table, Function<List<Student>, Object> tableQuery) {
+        System.out.printf("%-28s %14.1f %14.1f%n", name + ", ms", best(students, query), best(table, tableQuery));
+    }
+
+    private static double best(List<Student> students, Function<List<Student>, Object> query) {
+        return RUNNER.measure(() -> query.apply(students))[1] / 1e6;
+    }
+
+    private static long usedMemory() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
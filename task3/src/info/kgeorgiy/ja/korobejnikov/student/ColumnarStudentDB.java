@@ -0,0 +1,96 @@
+package info.kgeorgiy.ja.korobejnikov.student;
+
+import info.kgeorgiy.java.advanced.student.GroupName;
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * {@link StudentDB} over students copied to an immutable {@link StudentTable}.
+ * Queries about {@link #getStudents()} are answered by loops over the columns of the table,
+ * queries about other collections are answered as by {@link StudentDB}.
+ */
+public class ColumnarStudentDB extends StudentDB {
+    private final StudentTable table;
+
+    public ColumnarStudentDB(Collection<Student> students) {
+        this.table = StudentTable.of(students);
+    }
+
+    /**
+     * Creates database running queries that are not answered by the table in parallel mode of {@link StudentDB}.
+     */
+    public ColumnarStudentDB(Collection<Student> students, ForkJoinPool pool, int parallelThreshold) {
+        super(pool, parallelThreshold);
+        this.table = StudentTable.of(students);
+    }
+
+    /**
+     * Returns immutable list of the students, in order of the collection the database was created from.
+     */
+    public List<Student> getStudents() {
+        return table;
+    }
+
+    @Override
+    public List<String> getFirstNames(List<Student> students) {
+        return students == table ? table.firstNames() : super.getFirstNames(students);
+    }
+
+    @Override
+    public List<String> getLastNames(List<Student> students) {
+        return students == table ? table.lastNames() : super.getLastNames(students);
+    }
+
+    @Override
+    public List<GroupName> getGroups(List<Student> students) {
+        return students == table ? table.groups() : super.getGroups(students);
+    }
+
+    @Override
+    public List<String> getFullNames(List<Student> students) {
+        return students == table ? table.fullNames() : super.getFullNames(students);
+    }
+
+    @Override
+    public Set<String> getDistinctFirstNames(List<Student> students) {
+        return students == table ? table.distinctFirstNames() : super.getDistinctFirstNames(students);
+    }
+
+    @Override
+    public String getMaxStudentFirstName(List<Student> students) {
+        return students == table ? table.maxIdFirstName() : super.getMaxStudentFirstName(students);
+    }
+
+    @Override
+    public List<Student> findStudentsByFirstName(Collection<Student> students, String name) {
+        return students == table
+                ? sortStudentsByName(table.withFirstName(name))
+                : super.findStudentsByFirstName(students, name);
+    }
+
+    @Override
+    public List<Student> findStudentsByLastName(Collection<Student> students, String name) {
+        return students == table
+                ? sortStudentsByName(table.withLastName(name))
+                : super.findStudentsByLastName(students, name);
+    }
+
+    @Override
+    public List<Student> findStudentsByGroup(Collection<Student> students, GroupName group) {
+        return students == table
+                ? sortStudentsByName(table.inGroup(group))
+                : super.findStudentsByGroup(students, group);
+    }
+
+    @Override
+    public Map<String, String> findStudentNamesByGroup(Collection<Student> students, GroupName group) {
+        return students == table
+                ? collectNames(table.inGroup(group).stream())
+                : super.findStudentNamesByGroup(students, group);
+    }
+}
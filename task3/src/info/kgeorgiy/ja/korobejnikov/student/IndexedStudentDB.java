@@ -0,0 +1,68 @@
+package info.kgeorgiy.ja.korobejnikov.student;
+
+import info.kgeorgiy.java.advanced.student.GroupName;
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * {@link StudentDB} over an immutable copy of students indexed once, on creation.
+ * Find queries about {@link #getStudents()} are answered from the indexes in time of the result size,
+ * queries about other collections are answered as by {@link StudentDB}.
+ */
+public class IndexedStudentDB extends StudentDB {
+    private final List<Student> students;
+    private final StudentIndex index;
+
+    public IndexedStudentDB(Collection<Student> students) {
+        this.students = List.copyOf(students);
+        this.index = new StudentIndex(this.students, sortStudentsByName(this.students));
+    }
+
+    /**
+     * Creates database that builds indexes and runs other queries in parallel mode of {@link StudentDB}.
+     */
+    public IndexedStudentDB(Collection<Student> students, ForkJoinPool pool, int parallelThreshold) {
+        super(pool, parallelThreshold);
+        this.students = List.copyOf(students);
+        this.index = new StudentIndex(this.students, sortStudentsByName(this.students));
+    }
+
+    /**
+     * Returns immutable list of the students, in order of the collection the database was created from.
+     */
+    public List<Student> getStudents() {
+        return students;
+    }
+
+    @Override
+    public List<Student> findStudentsByFirstName(Collection<Student> students, String name) {
+        return students == this.students
+                ? index.byFirstName(name)
+                : super.findStudentsByFirstName(students, name);
+    }
+
+    @Override
+    public List<Student> findStudentsByLastName(Collection<Student> students, String name) {
+        return students == this.students
+                ? index.byLastName(name)
+                : super.findStudentsByLastName(students, name);
+    }
+
+    @Override
+    public List<Student> findStudentsByGroup(Collection<Student> students, GroupName group) {
+        return students == this.students
+                ? index.byGroup(group)
+                : super.findStudentsByGroup(students, group);
+    }
+
+    @Override
+    public Map<String, String> findStudentNamesByGroup(Collection<Student> students, GroupName group) {
+        return students == this.students
+                ? collectNames(index.byGroupInOrder(group).stream())
+                : super.findStudentNamesByGroup(students, group);
+    }
+}
@@ -0,0 +1,198 @@
+package info.kgeorgiy.ja.korobejnikov.student;
+
+import java.util.*;
+import java.util.stream.Collector;
+
+/**
+ * Partial sorts by binary heaps. Both are stable: elements equal by comparator keep encounter order,
+ * so results are prefixes of {@code stream.sorted(comparator)}.
+ */
+final class PartialSort {
+    private PartialSort() {
+    }
+
+    /**
+     * Collects {@code limit} smallest elements in sorted order by a bounded max-heap
+     * in O(n log limit) time and O(limit) memory. Works for parallel streams too.
+     */
+    static <T> Collector<T, ?, List<T>> smallest(Comparator<? super T> comparator, int limit) {
+        return Collector.of(
+                () -> new BoundedHeap<T>(comparator, limit),
+                BoundedHeap::add,
+                BoundedHeap::addAll,
+                BoundedHeap::toSortedList);
+    }
+
+    /**
+     * Returns iterator over {@code elements} in sorted order. Heap is built in O(n),
+     * every {@code next} costs O(log n), so first {@code k} elements are found in O(n + k log n).
+     */
+    static <T> Iterator<T> iterator(Collection<? extends T> elements, Comparator<? super T> comparator) {
+        return new HeapIterator<>(elements.toArray(), comparator);
+    }
+
+    private static class BoundedHeap<T> {
+        private final Comparator<? super T> comparator;
+        private final int limit;
+        private Object[] elements = new Object[16];
+        private long[] orders = new long[16];
+        private int size = 0;
+        private long seen = 0;
+
+        private BoundedHeap(Comparator<? super T> comparator, int limit) {
+            this.comparator = comparator;
+            this.limit = limit;
+        }
+
+        private void add(T element) {
+            offer(element, seen++);
+        }
+
+        private BoundedHeap<T> addAll(BoundedHeap<T> other) {
+            for (int i = 0; i < other.size; i++) {
+                offer(other.get(i), seen + other.orders[i]);
+            }
+            seen += other.seen;
+            return this;
+        }
+
+        private void offer(T element, long order) {
+            if (size < limit) {
+                if (size == elements.length) {
+                    final int capacity = (int) Math.min(limit, 2L * size);
+                    elements = Arrays.copyOf(elements, capacity);
+                    orders = Arrays.copyOf(orders, capacity);
+                }
+                set(size, element, order);
+                siftUp(size++);
+            } else if (limit > 0 && compare(element, order, 0) < 0) {
+                set(0, element, order);
+                siftDown(0, size);
+            }
+        }
+
+        private List<T> toSortedList() {
+            for (int last = size - 1; last > 0; last--) {
+                swap(0, last);
+                siftDown(0, last);
+            }
+            final List<T> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                result.add(get(i));
+            }
+            return result;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0 && greater(i, (i - 1) / 2)) {
+                swap(i, (i - 1) / 2);
+                i = (i - 1) / 2;
+            }
+        }
+
+        private void siftDown(int i, int end) {
+            while (2 * i + 1 < end) {
+                int child = 2 * i + 1;
+                if (child + 1 < end && greater(child + 1, child)) {
+                    child++;
+                }
+                if (!greater(child, i)) {
+                    return;
+                }
+                swap(i, child);
+                i = child;
+            }
+        }
+
+        private boolean greater(int i, int j) {
+            return compare(get(i), orders[i], j) > 0;
+        }
+
+        private int compare(T element, long order, int j) {
+            final int result = comparator.compare(element, get(j));
+            return result != 0 ? result : Long.compare(order, orders[j]);
+        }
+
+        @SuppressWarnings("unchecked")
+        private T get(int i) {
+            return (T) elements[i];
+        }
+
+        private void set(int i, T element, long order) {
+            elements[i] = element;
+            orders[i] = order;
+        }
+
+        private void swap(int i, int j) {
+            final Object element = elements[i];
+            final long order = orders[i];
+            elements[i] = elements[j];
+            orders[i] = orders[j];
+            elements[j] = element;
+            orders[j] = order;
+        }
+    }
+
+    private static class HeapIterator<T> implements Iterator<T> {
+        private final Object[] elements;
+        private final int[] heap;
+        private final Comparator<? super T> comparator;
+        private int size;
+
+        private HeapIterator(Object[] elements, Comparator<? super T> comparator) {
+            this.elements = elements;
+            this.comparator = comparator;
+            this.size = elements.length;
+            this.heap = new int[size];
+            for (int i = 0; i < size; i++) {
+                heap[i] = i;
+            }
+            for (int i = size / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return size > 0;
+        }
+
+        @Override
+        public T next() {
+            if (size == 0) {
+                throw new NoSuchElementException();
+            }
+            final T result = get(heap[0]);
+            elements[heap[0]] = null;
+            heap[0] = heap[--size];
+            siftDown(0);
+            return result;
+        }
+
+        private void siftDown(int i) {
+            final int index = heap[i];
+            while (2 * i + 1 < size) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && less(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!less(heap[child], index)) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = index;
+        }
+
+        private boolean less(int i, int j) {
+            final int result = comparator.compare(get(i), get(j));
+            return result < 0 || result == 0 && i < j;
+        }
+
+        @SuppressWarnings("unchecked")
+        private T get(int i) {
+            return (T) elements[i];
+        }
+    }
+}
@@ -1,25 +1,54 @@
 package info.kgeorgiy.ja.korobejnikov.student;
 
+import info.kgeorgiy.java.advanced.student.AdvancedQuery;
+import info.kgeorgiy.java.advanced.student.Group;
 import info.kgeorgiy.java.advanced.student.GroupName;
 import info.kgeorgiy.java.advanced.student.Student;
-import info.kgeorgiy.java.advanced.student.StudentQuery;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-public class StudentDB implements StudentQuery {
+public class StudentDB implements AdvancedQuery {
 
-    private final Comparator<Student> idComparator = Comparator.comparing(Student::getId);
+    private static final Comparator<Student> ID_COMPARATOR = Comparator.comparing(Student::getId);
 
-    private final Comparator<Student> studentNameComparator =
+    static final Comparator<Student> STUDENT_NAME_COMPARATOR =
             Comparator.comparing(Student::getLastName)
                     .thenComparing(Student::getFirstName)
                     .reversed()
                     .thenComparing(Student::getId);
 
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+
+    public StudentDB() {
+        this.pool = null;
+        this.parallelThreshold = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Creates database running queries over at least {@code parallelThreshold} students as parallel streams
+     * in the common pool. Results are the same as in sequential mode, including order of equal elements.
+     */
+    public StudentDB(int parallelThreshold) {
+        this(ForkJoinPool.commonPool(), parallelThreshold);
+    }
+
+    /**
+     * Creates database running queries over at least {@code parallelThreshold} students as parallel streams
+     * in {@code pool}.
+     */
+    public StudentDB(ForkJoinPool pool, int parallelThreshold) {
+        this.pool = Objects.requireNonNull(pool);
+        this.parallelThreshold = parallelThreshold;
+    }
+
     @Override
     public List<String> getFirstNames(List<Student> students) {
         return mapAndCollectToList(students, Student::getFirstName);
@@ -42,24 +71,70 @@ public class StudentDB implements StudentQuery {
 
     @Override
     public Set<String> getDistinctFirstNames(List<Student> students) {
-        return students.stream()
+        return query(students, stream -> stream
                 .map(Student::getFirstName)
-                .collect(Collectors.toCollection(TreeSet::new));
+                .collect(Collectors.toCollection(TreeSet::new)));
     }
 
     @Override
     public String getMaxStudentFirstName(List<Student> students) {
-        return students.stream().max(idComparator).map(Student::getFirstName).orElse("");
+        return query(students, stream -> stream.max(ID_COMPARATOR).map(Student::getFirstName).orElse(""));
     }
 
     @Override
     public List<Student> sortStudentsById(Collection<Student> students) {
-        return sortToList(students, idComparator);
+        return sortToList(students, ID_COMPARATOR);
     }
 
     @Override
     public List<Student> sortStudentsByName(Collection<Student> students) {
-        return sortToList(students, studentNameComparator);
+        return sortToList(students, STUDENT_NAME_COMPARATOR);
+    }
+
+    /**
+     * Returns first {@code limit} students of {@link #sortStudentsById(Collection)} in O(n log limit).
+     */
+    public List<Student> sortStudentsById(Collection<Student> students, int limit) {
+        return sortPage(students, ID_COMPARATOR, 0, limit);
+    }
+
+    /**
+     * Returns {@code limit} students of {@link #sortStudentsById(Collection)} starting from {@code offset}
+     * in O(n log (offset + limit)). To read many pages in a row use {@link #iterateStudentsById(Collection)}.
+     */
+    public List<Student> sortStudentsById(Collection<Student> students, int offset, int limit) {
+        return sortPage(students, ID_COMPARATOR, offset, limit);
+    }
+
+    /**
+     * Returns first {@code limit} students of {@link #sortStudentsByName(Collection)} in O(n log limit).
+     */
+    public List<Student> sortStudentsByName(Collection<Student> students, int limit) {
+        return sortPage(students, STUDENT_NAME_COMPARATOR, 0, limit);
+    }
+
+    /**
+     * Returns {@code limit} students of {@link #sortStudentsByName(Collection)} starting from {@code offset}
+     * in O(n log (offset + limit)). To read many pages in a row use {@link #iterateStudentsByName(Collection)}.
+     */
+    public List<Student> sortStudentsByName(Collection<Student> students, int offset, int limit) {
+        return sortPage(students, STUDENT_NAME_COMPARATOR, offset, limit);
+    }
+
+    /**
+     * Iterates students in order of {@link #sortStudentsById(Collection)}, sorting lazily:
+     * O(n) before the first student and O(log n) per next one.
+     */
+    public Iterator<Student> iterateStudentsById(Collection<Student> students) {
+        return PartialSort.iterator(students, ID_COMPARATOR);
+    }
+
+    /**
+     * Iterates students in order of {@link #sortStudentsByName(Collection)}, sorting lazily:
+     * O(n) before the first student and O(log n) per next one.
+     */
+    public Iterator<Student> iterateStudentsByName(Collection<Student> students) {
+        return PartialSort.iterator(students, STUDENT_NAME_COMPARATOR);
     }
 
     @Override
@@ -79,37 +154,153 @@ public class StudentDB implements StudentQuery {
 
     @Override
     public Map<String, String> findStudentNamesByGroup(Collection<Student> students, GroupName group) {
-        return filterByTarget(students, Student::getGroup, group)
-                .collect(Collectors.toMap(
-                        Student::getLastName,
-                        Student::getFirstName,
-                        BinaryOperator.minBy(String::compareToIgnoreCase)));
+        return query(students, stream -> collectNames(filterByTarget(stream, Student::getGroup, group)));
     }
 
-    private <T> List<Student> filterSort(Collection<Student> elements, Function<Student, T> getter, T target) {
-        return filterByTarget(elements, getter, target)
-                .sorted(studentNameComparator)
-                .collect(Collectors.toList());
+    @Override
+    public List<Group> getGroupsByName(Collection<Student> students) {
+        return getGroups(students, STUDENT_NAME_COMPARATOR);
     }
 
-    private List<Student> sortToList(Collection<Student> elements, Comparator<Student> comparator) {
-        return elements.stream()
+    @Override
+    public List<Group> getGroupsById(Collection<Student> students) {
+        return getGroups(students, ID_COMPARATOR);
+    }
+
+    @Override
+    public GroupName getLargestGroup(Collection<Student> students) {
+        return largest(students, Collectors.groupingBy(Student::getGroup, () -> new EnumMap<>(GroupName.class),
+                Collectors.counting()), Long::longValue, Comparator.naturalOrder(), null);
+    }
+
+    @Override
+    public GroupName getLargestGroupFirstName(Collection<Student> students) {
+        return largest(students, Collectors.groupingBy(Student::getGroup, () -> new EnumMap<>(GroupName.class),
+                Collectors.mapping(Student::getFirstName, Collectors.toSet())),
+                Set::size, Comparator.reverseOrder(), null);
+    }
+
+    @Override
+    public String getMostPopularName(Collection<Student> students) {
+        return largest(students, Collectors.groupingBy(Student::getFirstName, Collectors.mapping(Student::getGroup,
+                Collectors.toCollection(() -> EnumSet.noneOf(GroupName.class)))),
+                Set::size, Comparator.naturalOrder(), "");
+    }
+
+    @Override
+    public List<String> getFirstNames(Collection<Student> students, int[] indices) {
+        return mapByIndices(students, indices, Student::getFirstName);
+    }
+
+    @Override
+    public List<String> getLastNames(Collection<Student> students, int[] indices) {
+        return mapByIndices(students, indices, Student::getLastName);
+    }
+
+    @Override
+    public List<GroupName> getGroups(Collection<Student> students, int[] indices) {
+        return mapByIndices(students, indices, Student::getGroup);
+    }
+
+    @Override
+    public List<String> getFullNames(Collection<Student> students, int[] indices) {
+        return mapByIndices(students, indices, student -> student.getFirstName() + " " + student.getLastName());
+    }
+
+    /**
+     * Sorts students and splits them by groups in one pass, groups are in name order.
+     */
+    private List<Group> getGroups(Collection<Student> students, Comparator<Student> comparator) {
+        return query(students, stream -> stream
                 .sorted(comparator)
+                .collect(Collectors.groupingBy(Student::getGroup, () -> new EnumMap<>(GroupName.class),
+                        Collectors.toList())))
+                .entrySet().stream()
+                .map(entry -> new Group(entry.getKey(), entry.getValue()))
                 .collect(Collectors.toList());
     }
 
-    private <T> Stream<Student> filterByTarget(Collection<Student> elements, Function<Student, T> getter, T target) {
-        return elements.stream()
-                .filter(element -> getter.apply(element).equals(target));
+    /**
+     * Groups students by {@code grouping} and returns key with the greatest size of value, ties are resolved
+     * by the greatest key in {@code keyOrder}, {@code empty} if there are no students.
+     */
+    private <K, V> K largest(Collection<Student> students, Collector<Student, ?, Map<K, V>> grouping,
+                             ToLongFunction<V> size, Comparator<? super K> keyOrder, K empty) {
+        return query(students, stream -> stream.collect(grouping)).entrySet().stream()
+                .max(Comparator.<Map.Entry<K, V>>comparingLong(entry -> size.applyAsLong(entry.getValue()))
+                        .thenComparing(Map.Entry::getKey, keyOrder))
+                .map(Map.Entry::getKey)
+                .orElse(empty);
     }
 
-    private <T> List<T> mapAndCollectToList(Collection<Student> elements, Function<Student, T> function) {
-        return elements.stream()
+    /**
+     * Maps students by indices, in O(indices) if {@code students} is a random access list.
+     */
+    private static <T> List<T> mapByIndices(Collection<Student> students, int[] indices,
+                                            Function<Student, T> function) {
+        final List<Student> list = students instanceof List && students instanceof RandomAccess
+                ? (List<Student>) students
+                : new ArrayList<>(students);
+        return Arrays.stream(indices)
+                .mapToObj(list::get)
                 .map(function)
                 .collect(Collectors.toList());
     }
 
+    static Map<String, String> collectNames(Stream<Student> students) {
+        return students.collect(Collectors.toMap(
+                Student::getLastName,
+                Student::getFirstName,
+                BinaryOperator.minBy(String::compareToIgnoreCase)));
+    }
+
+    /**
+     * Applies {@code pipeline} to a sequential stream of {@code elements},
+     * or to a parallel one in the pool if there are enough elements.
+     */
+    <T, R> R query(Collection<T> elements, Function<Stream<T>, R> pipeline) {
+        if (pool == null || elements.size() < parallelThreshold) {
+            return pipeline.apply(elements.stream());
+        }
+        if (pool == ForkJoinPool.commonPool()) {
+            return pipeline.apply(elements.parallelStream());
+        }
+        return pool.submit(() -> pipeline.apply(elements.parallelStream())).join();
+    }
+
+    private <T> List<Student> filterSort(Collection<Student> elements, Function<Student, T> getter, T target) {
+        return query(elements, stream -> filterByTarget(stream, getter, target)
+                .sorted(STUDENT_NAME_COMPARATOR)
+                .collect(Collectors.toList()));
+    }
+
+    private List<Student> sortPage(Collection<Student> elements, Comparator<Student> comparator,
+                                   int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Negative offset or limit: " + offset + ", " + limit);
+        }
+        final int end = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+        final List<Student> sorted = end >= elements.size()
+                ? sortToList(elements, comparator)
+                : query(elements, stream -> stream.collect(PartialSort.smallest(comparator, end)));
+        return offset == 0 ? sorted : new ArrayList<>(sorted.subList(Math.min(offset, sorted.size()), sorted.size()));
+    }
+
+    private List<Student> sortToList(Collection<Student> elements, Comparator<Student> comparator) {
+        return query(elements, stream -> stream
+                .sorted(comparator)
+                .collect(Collectors.toList()));
+    }
+
+    private <T> Stream<Student> filterByTarget(Stream<Student> elements, Function<Student, T> getter, T target) {
+        return elements.filter(element -> getter.apply(element).equals(target));
+    }
 
+    private <T> List<T> mapAndCollectToList(Collection<Student> elements, Function<Student, T> function) {
+        return query(elements, stream -> stream
+                .map(function)
+                .collect(Collectors.toList()));
+    }
 }
 
 
@@ -0,0 +1,53 @@
+package info.kgeorgiy.ja.korobejnikov.student;
+
+import info.kgeorgiy.java.advanced.student.GroupName;
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Students of one collection grouped by first name, last name and group, every posting list is in name order.
+ * Groups are also kept in collection order, since names of a group depend on the order of equal names.
+ * Index doesn't follow changes of the collection, so it should be built for an immutable one.
+ */
+class StudentIndex {
+    private final Map<String, List<Student>> byFirstName;
+    private final Map<String, List<Student>> byLastName;
+    private final Map<GroupName, List<Student>> byGroup;
+    private final Map<GroupName, List<Student>> byGroupInOrder;
+
+    /**
+     * Builds index of {@code students}, {@code sorted} should contain the same students in name order.
+     */
+    StudentIndex(Collection<Student> students, List<Student> sorted) {
+        byFirstName = index(sorted, Student::getFirstName, HashMap::new);
+        byLastName = index(sorted, Student::getLastName, HashMap::new);
+        byGroup = index(sorted, Student::getGroup, () -> new EnumMap<>(GroupName.class));
+        byGroupInOrder = index(students, Student::getGroup, () -> new EnumMap<>(GroupName.class));
+    }
+
+    private static <K> Map<K, List<Student>> index(Collection<Student> students, Function<Student, K> key,
+                                                   Supplier<Map<K, List<Student>>> mapFactory) {
+        return students.stream().collect(Collectors.groupingBy(key, mapFactory,
+                Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList)));
+    }
+
+    List<Student> byFirstName(String name) {
+        return byFirstName.getOrDefault(name, List.of());
+    }
+
+    List<Student> byLastName(String name) {
+        return byLastName.getOrDefault(name, List.of());
+    }
+
+    List<Student> byGroup(GroupName group) {
+        return byGroup.getOrDefault(group, List.of());
+    }
+
+    List<Student> byGroupInOrder(GroupName group) {
+        return byGroupInOrder.getOrDefault(group, List.of());
+    }
+}
@@ -0,0 +1,174 @@
+package info.kgeorgiy.ja.korobejnikov.student;
+
+import info.kgeorgiy.java.advanced.student.GroupName;
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.util.*;
+
+/**
+ * Immutable list of students that also keeps them by columns: ids, dictionary-encoded first and last names
+ * and group ordinals, about 13 bytes per student. {@link ColumnarStudentDB} answers queries by loops
+ * over the columns, found students are the same objects the table was created from.
+ */
+class StudentTable extends AbstractList<Student> implements RandomAccess {
+    private static final GroupName[] GROUPS = GroupName.values();
+
+    private final Student[] rows;
+    private final int[] ids;
+    private final NameColumn firstNames;
+    private final NameColumn lastNames;
+    private final byte[] groups;
+
+    private StudentTable(Student[] rows, int[] ids, NameColumn firstNames, NameColumn lastNames, byte[] groups) {
+        this.rows = rows;
+        this.ids = ids;
+        this.firstNames = firstNames;
+        this.lastNames = lastNames;
+        this.groups = groups;
+    }
+
+    static StudentTable of(Collection<Student> students) {
+        final Student[] rows = students.toArray(Student[]::new);
+        final int size = rows.length;
+        final int[] ids = new int[size];
+        final NameColumn.Builder firstNames = new NameColumn.Builder(size);
+        final NameColumn.Builder lastNames = new NameColumn.Builder(size);
+        final byte[] groups = new byte[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = rows[i].getId();
+            firstNames.add(rows[i].getFirstName());
+            lastNames.add(rows[i].getLastName());
+            groups[i] = (byte) rows[i].getGroup().ordinal();
+        }
+        return new StudentTable(rows, ids, firstNames.build(), lastNames.build(), groups);
+    }
+
+    @Override
+    public Student get(int index) {
+        return rows[index];
+    }
+
+    @Override
+    public int size() {
+        return ids.length;
+    }
+
+    List<String> firstNames() {
+        return firstNames.values();
+    }
+
+    List<String> lastNames() {
+        return lastNames.values();
+    }
+
+    List<GroupName> groups() {
+        final GroupName[] result = new GroupName[groups.length];
+        for (int i = 0; i < groups.length; i++) {
+            result[i] = GROUPS[groups[i]];
+        }
+        return Arrays.asList(result);
+    }
+
+    List<String> fullNames() {
+        final String[] result = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            result[i] = firstNames.get(i) + " " + lastNames.get(i);
+        }
+        return Arrays.asList(result);
+    }
+
+    Set<String> distinctFirstNames() {
+        return new TreeSet<>(Arrays.asList(firstNames.dictionary));
+    }
+
+    String maxIdFirstName() {
+        int max = -1;
+        for (int i = 0; i < ids.length; i++) {
+            if (max < 0 || ids[i] > ids[max]) {
+                max = i;
+            }
+        }
+        return max < 0 ? "" : firstNames.get(max);
+    }
+
+    List<Student> withFirstName(String name) {
+        return select(firstNames.codes, firstNames.code(name));
+    }
+
+    List<Student> withLastName(String name) {
+        return select(lastNames.codes, lastNames.code(name));
+    }
+
+    List<Student> inGroup(GroupName group) {
+        final List<Student> result = new ArrayList<>();
+        final byte code = (byte) group.ordinal();
+        for (int i = 0; i < groups.length; i++) {
+            if (groups[i] == code) {
+                result.add(rows[i]);
+            }
+        }
+        return result;
+    }
+
+    private List<Student> select(int[] column, int code) {
+        final List<Student> result = new ArrayList<>();
+        if (code >= 0) {
+            for (int i = 0; i < column.length; i++) {
+                if (column[i] == code) {
+                    result.add(rows[i]);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static class NameColumn {
+        private final int[] codes;
+        private final String[] dictionary;
+        private final Map<String, Integer> index;
+
+        private NameColumn(int[] codes, String[] dictionary, Map<String, Integer> index) {
+            this.codes = codes;
+            this.dictionary = dictionary;
+            this.index = index;
+        }
+
+        private String get(int row) {
+            return dictionary[codes[row]];
+        }
+
+        private int code(String name) {
+            return index.getOrDefault(name, -1);
+        }
+
+        private List<String> values() {
+            final String[] result = new String[codes.length];
+            for (int i = 0; i < codes.length; i++) {
+                result[i] = dictionary[codes[i]];
+            }
+            return Arrays.asList(result);
+        }
+
+        private static class Builder {
+            private final int[] codes;
+            private final List<String> dictionary = new ArrayList<>();
+            private final Map<String, Integer> index = new HashMap<>();
+            private int size = 0;
+
+            private Builder(int capacity) {
+                codes = new int[capacity];
+            }
+
+            private void add(String name) {
+                codes[size++] = index.computeIfAbsent(name, key -> {
+                    dictionary.add(key);
+                    return dictionary.size() - 1;
+                });
+            }
+
+            private NameColumn build() {
+                return new NameColumn(codes, dictionary.toArray(String[]::new), index);
+            }
+        }
+    }
+}